@@ -0,0 +1,63 @@
+package redis.embedded.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import redis.embedded.RedisExecProvider;
+import redis.embedded.util.JarUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding the {@code redis-server} executable: {@link RedisExecProvider#get()} on a new and on a warm provider, the
+ * shared extraction cache of {@link JarUtil}, and a full extraction out of the jar.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutableBenchmark {
+
+    private RedisExecProvider provider;
+    private String resource;
+
+    @Setup
+    public void setUp() throws IOException {
+        provider = RedisExecProvider.defaultProvider();
+        // the executable is extracted under its resource name
+        resource = provider.get().getName();
+    }
+
+    @Benchmark
+    public File newProviderGet() throws IOException {
+        return RedisExecProvider.defaultProvider().get();
+    }
+
+    @Benchmark
+    public File warmProviderGet() throws IOException {
+        return provider.get();
+    }
+
+    @Benchmark
+    public File cachedExtraction() throws IOException {
+        return JarUtil.extractExecutableFromJar(resource);
+    }
+
+    /**
+     * Copies the executable out of the jar into a new temporary directory, deleted afterwards.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public long fullExtraction() throws IOException {
+        File file = JarUtil.extractFileFromJar(resource);
+        long length = file.length();
+        file.delete();
+        file.getParentFile().delete();
+        return length;
+    }
+}
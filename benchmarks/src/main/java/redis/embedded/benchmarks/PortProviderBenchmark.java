@@ -0,0 +1,67 @@
+package redis.embedded.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import redis.embedded.PortProvider;
+import redis.embedded.ports.DisjointPortProvider;
+import redis.embedded.ports.EphemeralPortProvider;
+import redis.embedded.ports.PredefinedPortProvider;
+import redis.embedded.ports.SequencePortProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ports of a topology: a new provider of each kind handing out {@code ports} ports, as a cluster builder does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PortProviderBenchmark {
+
+    @Param({"sequence", "predefined", "ephemeral", "disjoint"})
+    public String provider;
+
+    @Param({"1", "10"})
+    public int ports;
+
+    private List<Integer> predefined;
+
+    @Setup
+    public void setUp() {
+        predefined = new ArrayList<>();
+        for (int i = 0; i < ports; i++) {
+            predefined.add(30000 + i);
+        }
+    }
+
+    @Benchmark
+    public void allocate(Blackhole blackhole) {
+        PortProvider portProvider = newProvider();
+        for (int i = 0; i < ports; i++) {
+            blackhole.consume(portProvider.next());
+        }
+        if (portProvider instanceof DisjointPortProvider) {
+            ((DisjointPortProvider) portProvider).close();
+        }
+    }
+
+    private PortProvider newProvider() {
+        switch (provider) {
+            case "sequence":
+                return new SequencePortProvider();
+            case "predefined":
+                return new PredefinedPortProvider(predefined);
+            case "ephemeral":
+                return new EphemeralPortProvider();
+            case "disjoint":
+                return new DisjointPortProvider();
+            default:
+                throw new IllegalArgumentException("Unknown provider " + provider);
+        }
+    }
+}
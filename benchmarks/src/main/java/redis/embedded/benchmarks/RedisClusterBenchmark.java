@@ -0,0 +1,57 @@
+package redis.embedded.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import redis.embedded.RedisCluster;
+import redis.embedded.RedisClusterBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bringing up a sentinel {@link RedisCluster} of {@code groups} replication groups with {@code slaves} slaves each,
+ * watched by {@code sentinels} sentinels, started one instance after the other or in parallel. The cluster is
+ * stopped outside of the measurement.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class RedisClusterBenchmark {
+
+    @Param({"1", "3"})
+    public int sentinels;
+
+    @Param({"1", "3"})
+    public int groups;
+
+    @Param({"1"})
+    public int slaves;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private RedisCluster cluster;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        RedisClusterBuilder builder = RedisCluster.builder().ephemeral().sentinelCount(sentinels).quorumSize(1);
+        for (int i = 0; i < groups; i++) {
+            builder.replicationGroup("master" + i, slaves);
+        }
+        if (parallel) {
+            builder.parallel();
+        }
+        cluster = builder.build();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        cluster.stop();
+    }
+
+    @Benchmark
+    public void start() {
+        cluster.start();
+    }
+}
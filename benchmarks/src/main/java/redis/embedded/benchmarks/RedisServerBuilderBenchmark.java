@@ -0,0 +1,38 @@
+package redis.embedded.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import redis.embedded.RedisProfile;
+import redis.embedded.RedisServer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code RedisServerBuilder.build()}: resolving the executable, validating the profile and writing the config file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedisServerBuilderBenchmark {
+
+    @Benchmark
+    public RedisServer buildWithPort() {
+        return RedisServer.builder().port(6379).build();
+    }
+
+    @Benchmark
+    public RedisServer buildWithSettings() {
+        return RedisServer.builder().port(6379)
+            .setting("maxmemory 128mb")
+            .setting("maxmemory-policy allkeys-lru")
+            .setting("appendonly no")
+            .build();
+    }
+
+    @Benchmark
+    public RedisServer buildWithProfile() {
+        return RedisServer.builder().port(6379).profile(RedisProfile.inMemoryFast()).build();
+    }
+}
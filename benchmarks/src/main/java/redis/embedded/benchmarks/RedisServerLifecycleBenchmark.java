@@ -0,0 +1,55 @@
+package redis.embedded.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import redis.embedded.RedisServer;
+import redis.embedded.ports.EphemeralPortProvider;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single {@code redis-server}: the time until it accepts connections, the time until it is gone, and both.
+ * Each invocation gets a new server on a new ephemeral port.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 30)
+@Fork(1)
+@State(Scope.Thread)
+public class RedisServerLifecycleBenchmark {
+
+    private final EphemeralPortProvider ports = new EphemeralPortProvider();
+    private RedisServer server;
+
+    @Setup(Level.Invocation)
+    public void setUp(BenchmarkParams params) {
+        server = RedisServer.builder().port(ports.next()).build();
+        if (params.getBenchmark().endsWith(".stop")) {
+            server.start();
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        if (server.isActive()) {
+            server.stop();
+        }
+    }
+
+    @Benchmark
+    public void start() {
+        server.start();
+    }
+
+    @Benchmark
+    public void stop() {
+        server.stop();
+    }
+
+    @Benchmark
+    public void startAndStop() {
+        server.start();
+        server.stop();
+    }
+}
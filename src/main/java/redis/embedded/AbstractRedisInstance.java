@@ -1,21 +1,58 @@
 package redis.embedded;
 
 import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.exceptions.RedisCommandException;
+import redis.embedded.log.LogBuffer;
+import redis.embedded.log.LogPump;
+import redis.embedded.log.LogSink;
+import redis.embedded.log.LogSinks;
+import redis.embedded.resp.RespClient;
 
 import java.io.*;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
 
 abstract class AbstractRedisInstance implements Redis {
+    static final String DEFAULT_HOST = "127.0.0.1";
+    static final long DEFAULT_STARTUP_TIMEOUT_MILLIS = 30000L;
+    static final int DEFAULT_OUTPUT_BUFFER_SIZE = 1000;
+    static final int DEFAULT_PORT_RETRIES = 3;
 
-    private final int port;
+    private static final long MIN_PROBE_INTERVAL_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long MAX_PROBE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private static final Pattern PORT_CONFLICT = Pattern.compile("Address (already )?in use");
+
+    private volatile int port;
     private final int tlsPort;
     private final List<String> args;
 
+    private String host = DEFAULT_HOST;
+    private long startupTimeoutMillis = DEFAULT_STARTUP_TIMEOUT_MILLIS;
+    private int outputBufferSize = DEFAULT_OUTPUT_BUFFER_SIZE;
+    private File outputFile;
+    private LogSink logSink = LogSinks.consoleErrors();
+    private PortProvider portProvider;
+    private int portRetries;
+    private String unixSocket;
+    private StopStrategy stopStrategy = StopStrategy.DEFAULT;
+    private WorkingDirectory workingDirectory = WorkingDirectory.temporary();
+    private volatile StopReport lastStopReport;
+    private StartupReport buildReport;
+    private volatile StartupReport lastStartupReport;
+
     private Process redisProcess;
-    private ExecutorService executor;
+    private LogPump.Attachment outputPump;
+    private volatile LogBuffer output;
+    private int outputFileSkipLines;
     private volatile boolean active = false;
 
     protected AbstractRedisInstance(int port, List<String> args) {
@@ -25,7 +62,132 @@ abstract class AbstractRedisInstance implements Redis {
     protected AbstractRedisInstance(int port, int tlsPort, List<String> args) {
         this.port = port;
         this.tlsPort = tlsPort;
-        this.args = args;
+        this.args = new ArrayList<>(args);
+    }
+
+    /**
+     * The address the readiness probe connects to.
+     */
+    void host(String host) {
+        this.host = host;
+    }
+
+    /**
+     * How long {@link #start()} waits for the instance to accept commands.
+     */
+    void startupTimeoutMillis(long startupTimeoutMillis) {
+        this.startupTimeoutMillis = startupTimeoutMillis;
+    }
+
+    /**
+     * How many of the most recent stdout and stderr lines are kept in memory.
+     */
+    void outputBufferSize(int outputBufferSize) {
+        this.outputBufferSize = outputBufferSize;
+    }
+
+    /**
+     * Appends stdout and stderr of the process to the file instead of pumping them through the JVM.
+     */
+    void outputFile(File outputFile) {
+        this.outputFile = outputFile;
+    }
+
+    /**
+     * Where the output lines go, besides the per-instance ring.
+     */
+    void logSink(LogSink logSink) {
+        this.logSink = logSink;
+    }
+
+    /**
+     * If the port turns out to be taken by another process, retries up to {@code retries} times with
+     * a new port from the provider.
+     */
+    void portProvider(PortProvider portProvider, int retries) {
+        this.portProvider = portProvider;
+        this.portRetries = retries;
+    }
+
+    /**
+     * The unix domain socket the instance listens on, an instance without TCP port is ready once the socket exists.
+     */
+    void unixSocket(String unixSocket) {
+        this.unixSocket = unixSocket;
+    }
+
+    void stopStrategy(StopStrategy stopStrategy) {
+        this.stopStrategy = stopStrategy;
+    }
+
+    void workingDirectory(WorkingDirectory workingDirectory) {
+        this.workingDirectory = workingDirectory;
+    }
+
+    /**
+     * The phases of the build of this instance, reported with every start.
+     */
+    void buildReport(StartupReport buildReport) {
+        this.buildReport = buildReport;
+    }
+
+    /**
+     * {@code master}, {@code slave} or {@code sentinel}, as reported in the {@link StartupReport}.
+     */
+    String role() {
+        return args.contains("--slaveof") || args.contains("--replicaof") ? "slave" : "master";
+    }
+
+    /**
+     * The address clients connect to, derived from the {@code bind} address.
+     */
+    public String host() {
+        return host;
+    }
+
+    List<String> args() {
+        return args;
+    }
+
+    /**
+     * Points the replication of this instance to the new port of its master, must be called before {@link #start()}.
+     */
+    void masterPortChanged(int oldPort, int newPort) {
+        for (int i = 0; i + 2 < args.size(); i++) {
+            if (("--slaveof".equals(args.get(i)) || "--replicaof".equals(args.get(i)))
+                && Integer.toString(oldPort).equals(args.get(i + 2))) {
+                args.set(i + 2, Integer.toString(newPort));
+            }
+        }
+    }
+
+    /**
+     * Makes this instance start as a slave of the master, or as a master with {@code null}, for example after
+     * a failover; must be called before {@link #start()}.
+     */
+    void replicaOf(String masterHost, int masterPort) {
+        for (int i = 0; i < args.size(); i++) {
+            if (("--slaveof".equals(args.get(i)) || "--replicaof".equals(args.get(i))) && i + 2 < args.size()) {
+                args.subList(i, i + 3).clear();
+                break;
+            }
+        }
+        if (masterHost != null) {
+            args.add("--slaveof");
+            args.add(masterHost);
+            args.add(Integer.toString(masterPort));
+        }
+    }
+
+    /**
+     * Returns the most recent stdout and stderr lines of the current (or last) run, oldest first.
+     */
+    public List<String> recentOutput() {
+        if (outputFile != null) {
+            return tailOutputFile();
+        }
+        LogBuffer buffer = output;
+        return buffer != null ? buffer.lines() : Collections.emptyList();
     }
 
     @Override
@@ -38,76 +200,334 @@ abstract class AbstractRedisInstance implements Redis {
         if (active) {
             throw new EmbeddedRedisException("This redis server instance is already running...");
         }
+        final StartupReport report = new StartupReport();
+        report.addAll(buildReport);
         try {
-            redisProcess = createRedisProcessBuilder().start();
-            installExitHook();
-            logErrors();
-            awaitRedisServerReady();
-            active = true;
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    report.identify(toString(), role(), port);
+                    startProcess(report);
+                    return;
+                } catch (EmbeddedRedisException e) {
+                    if (portProvider == null || attempt >= portRetries || !isPortConflict(e)) {
+                        throw e;
+                    }
+                    reassignPort(portProvider.next());
+                }
+            }
+        } finally {
+            lastStartupReport = report;
+        }
+    }
+
+    private void startProcess(StartupReport report) {
+        try {
+            redisProcess = report.time(StartupReport.Phase.SPAWN, () -> {
+                if (unixSocket != null) {
+                    // a socket file left behind by a killed process would look like a ready instance
+                    Files.deleteIfExists(Paths.get(unixSocket));
+                }
+                outputFileSkipLines = outputFile != null ? readOutputFile().size() : 0;
+                return createRedisProcessBuilder().start();
+            });
         } catch (IOException e) {
             throw new EmbeddedRedisException("Failed to start Redis instance", e);
         }
+        try {
+            ShutdownCoordinator.shared().register(this);
+            report.time(StartupReport.Phase.READY, () -> {
+                drainOutput();
+                awaitRedisServerReady();
+                return null;
+            });
+            active = true;
+        } catch (InterruptedException | RuntimeException e) {
+            redisProcess.destroyForcibly();
+            ShutdownCoordinator.shared().deregister(this);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (e instanceof EmbeddedRedisException) {
+                throw (EmbeddedRedisException) e;
+            }
+            throw new EmbeddedRedisException("Failed to start Redis instance", e);
+        }
+    }
+
+    private static boolean isPortConflict(EmbeddedRedisException e) {
+        return e.getMessage() != null && PORT_CONFLICT.matcher(e.getMessage()).find();
+    }
+
+    private void reassignPort(int newPort) {
+        int index = args.indexOf("--port");
+        if (index >= 0 && index + 1 < args.size()) {
+            args.set(index + 1, Integer.toString(newPort));
+        } else {
+            args.add("--port");
+            args.add(Integer.toString(newPort));
+        }
+        this.port = newPort;
+    }
+
+    /**
+     * Keeps reading stdout and stderr for the whole life of the process, so that a chatty
+     * instance never blocks on a full pipe.
+     */
+    private void drainOutput() {
+        if (outputFile != null) {
+            this.output = null;
+            this.outputPump = null;
+            return;
+        }
+        this.output = new LogBuffer(outputBufferSize);
+        this.outputPump = LogPump.shared().attach(redisProcess, toString(), output, logSink);
+    }
+
+    private void awaitRedisServerReady() throws InterruptedException {
+        ReadinessProbe probe = readinessProbe();
+        if (probe != null) {
+            awaitProbe(probe);
+        } else if (unixSocket != null) {
+            awaitUnixSocket();
+        } else {
+            awaitReadyLine();
+        }
+    }
+
+    private ReadinessProbe readinessProbe() {
+        if (port > 0) {
+            return new ReadinessProbe(host, port, false);
+        }
+        if (tlsPort > 0) {
+            return new ReadinessProbe(host, tlsPort, true);
+        }
+        return null;
     }
 
-    private void installExitHook() {
-        Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "RedisInstanceCleaner"));
+    private void awaitProbe(ReadinessProbe probe) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(startupTimeoutMillis);
+        long interval = MIN_PROBE_INTERVAL_NANOS;
+        while (!probe.isReady()) {
+            checkAlive();
+            if (System.nanoTime() - deadline > 0) {
+                throw new EmbeddedRedisException("Can't start redis server, " + probe
+                    + " did not answer PING within " + startupTimeoutMillis + "ms");
+            }
+            LockSupport.parkNanos(interval);
+            interval = Math.min(interval << 1, MAX_PROBE_INTERVAL_NANOS);
+        }
+        checkAlive();
+        checkResponder(probe, deadline);
     }
 
-    @SuppressWarnings("all")
-    private void logErrors() {
-        final InputStream errorStream = redisProcess.getErrorStream();
-        BufferedReader reader = new BufferedReader(new InputStreamReader(errorStream));
-        Runnable printReaderTask = new PrintReaderRunnable(reader);
-        this.executor = Executors.newSingleThreadExecutor();
-        this.executor.submit(printReaderTask);
+    /**
+     * Any process holding the port answers the probe: when it is another redis (another fork of the build, or a
+     * leftover instance), ours fails to bind and exits, and the start fails with its {@code Address already in use}.
+     */
+    private void checkResponder(ReadinessProbe probe, long deadline) throws InterruptedException {
+        final long pid = processId(redisProcess);
+        final long responder = probe.processId();
+        if (pid < 0 || responder < 0 || pid == responder || probe.servesDirectory(workingDirectory())) {
+            return;
+        }
+        long remaining = deadline - System.nanoTime();
+        if (remaining > 0) {
+            redisProcess.waitFor(remaining, TimeUnit.NANOSECONDS);
+        }
+        checkAlive();
+        throw new EmbeddedRedisException("Can't start redis server, " + probe + " is answered by process "
+            + responder + " instead of " + pid + ": Address already in use");
     }
 
-    private void awaitRedisServerReady() throws IOException {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(redisProcess.getInputStream()));
+    /**
+     * The pid of the process, through {@code Process.pid()} on Java 9+ and the {@code pid} field of
+     * {@code UNIXProcess} on Java 8; {@code -1} if it cannot be told.
+     */
+    private static long processId(Process process) {
         try {
-            StringBuilder builder = new StringBuilder();
-            String outputLine;
-            do {
-                outputLine = reader.readLine();
-                if (outputLine == null) {
-                    //Something goes wrong. Stream is ended before server was activated.
-                    throw new RuntimeException("Can't start redis server. Check logs for details. Redis process log: " + builder);
-                } else {
-                    builder.append("\n");
-                    builder.append(outputLine);
-                }
-            } while (!outputLine.matches(redisReadyPattern()));
-        } finally {
-            closeQuietly(reader);
+            return (Long) Process.class.getMethod("pid").invoke(process);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Java 8
+        }
+        try {
+            Field field = process.getClass().getDeclaredField("pid");
+            field.setAccessible(true);
+            return field.getLong(process);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Redis creates the socket file when it starts listening, right before it accepts connections.
+     */
+    private void awaitUnixSocket() throws InterruptedException {
+        final File socket = new File(unixSocket);
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(startupTimeoutMillis);
+        long interval = MIN_PROBE_INTERVAL_NANOS;
+        while (!socket.exists()) {
+            checkAlive();
+            if (System.nanoTime() - deadline > 0) {
+                throw new EmbeddedRedisException("Can't start redis server, unix socket " + unixSocket
+                    + " was not created within " + startupTimeoutMillis + "ms");
+            }
+            LockSupport.parkNanos(interval);
+            interval = Math.min(interval << 1, MAX_PROBE_INTERVAL_NANOS);
+        }
+    }
+
+    /**
+     * Fallback for instances without a port to probe: waits for the ready line in the process output.
+     */
+    private void awaitReadyLine() throws InterruptedException {
+        final Pattern readyPattern = Pattern.compile(redisReadyPattern());
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(startupTimeoutMillis);
+        while (true) {
+            LogBuffer buffer = output;
+            long seen = buffer != null ? buffer.total() : 0;
+            if (buffer != null ? buffer.contains(readyPattern) : outputFileContains(readyPattern)) {
+                return;
+            }
+            checkAlive();
+            if (System.nanoTime() - deadline > 0) {
+                throw new EmbeddedRedisException("Can't start redis server, no line matched " + readyPattern
+                    + " within " + startupTimeoutMillis + "ms. Redis process log: " + String.join("\n", recentOutput()));
+            }
+            if (buffer != null) {
+                buffer.awaitLine(seen, TimeUnit.NANOSECONDS.toMillis(MAX_PROBE_INTERVAL_NANOS));
+            } else {
+                LockSupport.parkNanos(MAX_PROBE_INTERVAL_NANOS);
+            }
+        }
+    }
+
+    private void checkAlive() throws InterruptedException {
+        if (redisProcess.isAlive()) {
+            return;
+        }
+        if (outputPump != null) {
+            // let the pump reach the end of the streams, so the log below is complete
+            outputPump.awaitDrained(1000);
+        }
+        throw new EmbeddedRedisException("Can't start redis server, process exited with code "
+            + redisProcess.exitValue() + ". Redis process log: " + String.join("\n", recentOutput()));
+    }
+
+    private boolean outputFileContains(Pattern pattern) {
+        List<String> lines = readOutputFile();
+        // the file is appended to, so skip the lines written by previous runs
+        for (String line : lines.subList(Math.min(outputFileSkipLines, lines.size()), lines.size())) {
+            if (pattern.matcher(line).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<String> tailOutputFile() {
+        List<String> lines = readOutputFile();
+        return lines.size() > outputBufferSize ? lines.subList(lines.size() - outputBufferSize, lines.size()) : lines;
+    }
+
+    private List<String> readOutputFile() {
+        if (!outputFile.exists()) {
+            return Collections.emptyList();
+        }
+        try {
+            return Files.readAllLines(outputFile.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return Collections.emptyList();
         }
     }
 
     protected abstract String redisReadyPattern();
 
     private ProcessBuilder createRedisProcessBuilder() {
-        File executable = new File(args.get(0));
         ProcessBuilder pb = new ProcessBuilder(args);
-        pb.directory(executable.getParentFile());
+        pb.directory(workingDirectory.prepare());
+        if (outputFile != null) {
+            pb.redirectErrorStream(true);
+            pb.redirectOutput(ProcessBuilder.Redirect.appendTo(outputFile));
+        }
         return pb;
     }
 
     @Override
-    public synchronized void stop() throws EmbeddedRedisException {
-        if (active) {
-            if (executor != null && !executor.isShutdown()) {
-                executor.shutdown();
-            }
-            redisProcess.destroy();
-            tryWaitFor();
-            active = false;
-        }
+    public void stop() throws EmbeddedRedisException {
+        stop(stopStrategy);
     }
 
-    private void tryWaitFor() {
+    /**
+     * Stops the instance with another strategy than the configured one, {@link StopStrategy#KILL} simulates a crash.
+     */
+    public synchronized void stop(StopStrategy stopStrategy) throws EmbeddedRedisException {
+        if (!active) {
+            return;
+        }
+        final StopReport report = new StopReport(toString());
         try {
-            redisProcess.waitFor();
+            if (stopStrategy.shutdownMillis() > 0 && port > 0 && redisProcess.isAlive()) {
+                long begin = System.nanoTime();
+                sendShutdownNoSave(stopStrategy);
+                boolean exited = redisProcess.waitFor(stopStrategy.shutdownMillis(), TimeUnit.MILLISECONDS);
+                report.record(StopReport.Phase.SHUTDOWN_NOSAVE, System.nanoTime() - begin, exited);
+            }
+            if (stopStrategy.terminateMillis() > 0 && redisProcess.isAlive()) {
+                long begin = System.nanoTime();
+                redisProcess.destroy();
+                boolean exited = redisProcess.waitFor(stopStrategy.terminateMillis(), TimeUnit.MILLISECONDS);
+                report.record(StopReport.Phase.SIGTERM, System.nanoTime() - begin, exited);
+            }
+            if (redisProcess.isAlive()) {
+                long begin = System.nanoTime();
+                redisProcess.destroyForcibly();
+                boolean exited = redisProcess.waitFor(stopStrategy.killMillis(), TimeUnit.MILLISECONDS);
+                report.record(StopReport.Phase.SIGKILL, System.nanoTime() - begin, exited);
+            }
         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            redisProcess.destroyForcibly();
             throw new EmbeddedRedisException("Failed to stop redis instance", e);
+        } finally {
+            lastStopReport = report;
+            active = false;
+            ShutdownCoordinator.shared().deregister(this);
+            workingDirectory.release();
+        }
+    }
+
+    /**
+     * The private directory the process runs in, {@code null} before the first start and after a stop which deleted it.
+     */
+    public File workingDirectory() {
+        return workingDirectory.current();
+    }
+
+    /**
+     * How the last {@link #start()} went, including the build of the instance and failed attempts,
+     * {@code null} before the first start.
+     */
+    public StartupReport lastStartupReport() {
+        return lastStartupReport;
+    }
+
+    /**
+     * How the last {@link #stop()} went, {@code null} before the first stop.
+     */
+    public StopReport lastStopReport() {
+        return lastStopReport;
+    }
+
+    /**
+     * Asks the instance to exit right away, without writing a dump. The connection is closed by the exiting
+     * server, an error (for example {@code NOAUTH}) or a timeout just moves on to {@code SIGTERM}.
+     */
+    private void sendShutdownNoSave(StopStrategy stopStrategy) {
+        final int timeout = (int) Math.min(stopStrategy.shutdownMillis(), 1000L);
+        try (RespClient client = RespClient.connect(host, port, timeout)) {
+            client.execute("SHUTDOWN", "NOSAVE");
+        } catch (IOException | RedisCommandException e) {
+            // the server closed the connection while exiting, or refused the command
         }
     }
 
@@ -121,32 +541,40 @@ abstract class AbstractRedisInstance implements Redis {
         return tlsPort > 0 ? Collections.singletonList(tlsPort) : Collections.emptyList();
     }
 
-    private static class PrintReaderRunnable implements Runnable {
-        private final BufferedReader reader;
+    @Override
+    public List<String> unixSockets() {
+        return unixSocket != null ? Collections.singletonList(unixSocket) : Collections.emptyList();
+    }
 
-        private PrintReaderRunnable(BufferedReader reader) {
-            this.reader = reader;
+    /**
+     * Resolves an address a client can connect to, from the value of the {@code bind} directive.
+     */
+    static String connectableHost(String bind) {
+        if (bind == null || bind.trim().isEmpty()) {
+            return DEFAULT_HOST;
         }
-
-        @Override
-        public void run() {
-            try {
-                readLines();
-            } finally {
-                closeQuietly(reader);
-            }
+        String host = bind.trim().split("\\s+")[0];
+        if (host.startsWith("-")) {
+            host = host.substring(1);
         }
+        switch (host) {
+            case "*":
+            case "0.0.0.0":
+                return DEFAULT_HOST;
+            case "::*":
+            case "::":
+                return "::1";
+            default:
+                return host;
+        }
+    }
 
-        public void readLines() {
-            try {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    System.out.println(line);
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+    @Override
+    public String toString() {
+        if (port <= 0 && unixSocket != null) {
+            return getClass().getSimpleName() + "[" + unixSocket + "]";
         }
+        return getClass().getSimpleName() + ports();
     }
 
     public static void closeQuietly(Closeable closeable) {
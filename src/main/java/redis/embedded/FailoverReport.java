@@ -0,0 +1,43 @@
+package redis.embedded;
+
+import java.time.Duration;
+
+/**
+ * The outcome of {@link RedisCluster#failover(String)} or {@link RedisCluster#killMaster(String)}: the master
+ * before and after, and the time from the trigger to the {@code +switch-master} event.
+ */
+public class FailoverReport {
+    private final String masterName;
+    private final int oldMasterPort;
+    private final int newMasterPort;
+    private final Duration duration;
+
+    FailoverReport(String masterName, int oldMasterPort, int newMasterPort, Duration duration) {
+        this.masterName = masterName;
+        this.oldMasterPort = oldMasterPort;
+        this.newMasterPort = newMasterPort;
+        this.duration = duration;
+    }
+
+    public String masterName() {
+        return masterName;
+    }
+
+    public int oldMasterPort() {
+        return oldMasterPort;
+    }
+
+    public int newMasterPort() {
+        return newMasterPort;
+    }
+
+    public Duration duration() {
+        return duration;
+    }
+
+    @Override
+    public String toString() {
+        return "FailoverReport[" + masterName + ": " + oldMasterPort + " -> " + newMasterPort + " in "
+            + duration.toMillis() + "ms]";
+    }
+}
@@ -0,0 +1,202 @@
+package redis.embedded;
+
+import redis.embedded.exceptions.RedisCommandException;
+import redis.embedded.resp.RespClient;
+
+import javax.net.ssl.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.cert.X509Certificate;
+import java.util.List;
+
+/**
+ * Checks whether a redis instance accepts commands, by sending a RESP {@code PING} to its port.
+ * Plain ports are probed with {@link RespClient}, TLS ports with an {@link SSLSocket}.
+ *
+ * <p>A {@code -LOADING} reply means the server is still loading its dataset and is not ready yet,
+ * any other reply (including {@code -NOAUTH}) means the server is serving commands. Whichever process
+ * holds the port answers, so {@link #processId()} tells whether it is the instance just spawned.
+ */
+class ReadinessProbe {
+    private static final byte[] PING = "*1\r\n$4\r\nPING\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] INFO_SERVER = "*2\r\n$4\r\nINFO\r\n$6\r\nserver\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final String PROCESS_ID = "process_id:";
+    private static final int TIMEOUT_MILLIS = 1000;
+
+    private static volatile SSLSocketFactory trustAllSocketFactory;
+
+    private final String host;
+    private final int port;
+    private final boolean tls;
+
+    ReadinessProbe(String host, int port, boolean tls) {
+        this.host = host;
+        this.port = port;
+        this.tls = tls;
+    }
+
+    boolean isReady() {
+        if (!tls) {
+            try (RespClient client = RespClient.connect(host, port, TIMEOUT_MILLIS)) {
+                client.execute("PING");
+                return true;
+            } catch (RedisCommandException e) {
+                return !"LOADING".equals(e.errorCode());
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        try (Socket socket = new Socket()) {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(TIMEOUT_MILLIS);
+            socket.connect(new InetSocketAddress(host, port), TIMEOUT_MILLIS);
+            try (SSLSocket sslSocket = (SSLSocket) trustAllSocketFactory().createSocket(socket, host, port, false)) {
+                sslSocket.startHandshake();
+                return ping(sslSocket);
+            } catch (SSLException e) {
+                // the listener is up, but requires a client certificate we do not have
+                return true;
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The {@code process_id} reported by {@code INFO server} of the process answering on the port,
+     * {@code -1} if it cannot be told (for example a {@code -NOAUTH} reply).
+     */
+    long processId() {
+        if (!tls) {
+            try (RespClient client = RespClient.connect(host, port, TIMEOUT_MILLIS)) {
+                return parseProcessId(String.valueOf(client.execute("INFO", "server")));
+            } catch (IOException | RedisCommandException e) {
+                return -1;
+            }
+        }
+        try (Socket socket = new Socket()) {
+            socket.setSoTimeout(TIMEOUT_MILLIS);
+            socket.connect(new InetSocketAddress(host, port), TIMEOUT_MILLIS);
+            try (SSLSocket sslSocket = (SSLSocket) trustAllSocketFactory().createSocket(socket, host, port, false)) {
+                sslSocket.startHandshake();
+                return parseProcessId(infoServer(sslSocket));
+            }
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Whether {@code CONFIG GET dir} of the process answering on the port is the directory, for instances
+     * spawned through a wrapper whose pid is not the one of the server. Only asked on plain ports.
+     */
+    boolean servesDirectory(File directory) {
+        if (tls || directory == null) {
+            return false;
+        }
+        try (RespClient client = RespClient.connect(host, port, TIMEOUT_MILLIS)) {
+            Object reply = client.execute("CONFIG", "GET", "dir");
+            if (!(reply instanceof List) || ((List<?>) reply).size() < 2) {
+                return false;
+            }
+            File dir = new File(String.valueOf(((List<?>) reply).get(1)));
+            return dir.getCanonicalFile().equals(directory.getCanonicalFile());
+        } catch (IOException | RedisCommandException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return (tls ? "tls://" : "tcp://") + host + ":" + port;
+    }
+
+    // --------------------------------------------------------------------private methods
+
+    private static boolean ping(Socket socket) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(PING);
+        out.flush();
+
+        InputStream in = socket.getInputStream();
+        StringBuilder reply = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1 && b != '\r') {
+            reply.append((char) b);
+        }
+        return reply.length() > 0 && !reply.toString().startsWith("-LOADING");
+    }
+
+    private static String infoServer(Socket socket) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(INFO_SERVER);
+        out.flush();
+
+        InputStream in = socket.getInputStream();
+        StringBuilder reply = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            reply.append((char) b);
+        }
+        if (reply.length() < 2 || reply.charAt(0) != '$') {
+            return "";
+        }
+        byte[] bulk = new byte[Integer.parseInt(reply.substring(1).trim())];
+        for (int offset = 0, n; offset < bulk.length; offset += n) {
+            if ((n = in.read(bulk, offset, bulk.length - offset)) < 0) {
+                throw new IOException("Connection closed while reading INFO");
+            }
+        }
+        return new String(bulk, StandardCharsets.UTF_8);
+    }
+
+    private static long parseProcessId(String info) {
+        for (String line : info.split("\r?\n")) {
+            if (line.startsWith(PROCESS_ID)) {
+                try {
+                    return Long.parseLong(line.substring(PROCESS_ID.length()).trim());
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static SSLSocketFactory trustAllSocketFactory() throws IOException {
+        if (trustAllSocketFactory == null) {
+            try {
+                SSLContext context = SSLContext.getInstance("TLS");
+                context.init(null, new TrustManager[]{new TrustAllManager()}, null);
+                trustAllSocketFactory = context.getSocketFactory();
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Could not create TLS probe", e);
+            }
+        }
+        return trustAllSocketFactory;
+    }
+
+    /**
+     * The probe only talks to a process this library just spawned, it never sends data that needs protection.
+     */
+    private static class TrustAllManager implements X509TrustManager {
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return new X509Certificate[0];
+        }
+    }
+}
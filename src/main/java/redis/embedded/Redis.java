@@ -1,8 +1,12 @@
 package redis.embedded;
 
 import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.util.ParallelUtil;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public interface Redis {
     boolean isActive();
@@ -11,7 +15,34 @@ public interface Redis {
 
     void stop() throws EmbeddedRedisException;
 
+    /**
+     * Starts in the background, so the caller can prepare other fixtures meanwhile. The future fails with
+     * the exception {@link #start()} would have thrown.
+     */
+    default CompletableFuture<Void> startAsync() {
+        return ParallelUtil.runAsync(this::start);
+    }
+
+    default CompletableFuture<Void> startAsync(Executor executor) {
+        return CompletableFuture.runAsync(this::start, executor);
+    }
+
+    default CompletableFuture<Void> stopAsync() {
+        return ParallelUtil.runAsync(this::stop);
+    }
+
+    default CompletableFuture<Void> stopAsync(Executor executor) {
+        return CompletableFuture.runAsync(this::stop, executor);
+    }
+
     List<Integer> ports();
 
     List<Integer> tlsPorts();
+
+    /**
+     * The paths of the unix domain sockets the instances listen on, empty if they only listen on TCP.
+     */
+    default List<String> unixSockets() {
+        return Collections.emptyList();
+    }
 }
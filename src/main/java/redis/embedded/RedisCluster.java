@@ -2,19 +2,97 @@ package redis.embedded;
 
 import com.google.common.collect.Lists;
 import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.resp.RespClient;
+import redis.embedded.util.ParallelUtil;
 
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 public class RedisCluster implements Redis {
+    private static final long MIN_POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long MAX_POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long DEFAULT_FAILOVER_TIMEOUT_MILLIS = 60000L;
+    private static final long SENTINEL_INFO_PERIOD_MILLIS = 10000L;
 
     private final List<Redis> sentinels = new LinkedList<>();
     private final List<Redis> servers = new LinkedList<>();
+    private final List<Redis> masters = new LinkedList<>();
+    private final List<Redis> slaves = new LinkedList<>();
+    private final Map<String, Integer> slaveCounts = new LinkedHashMap<>();
+
+    private boolean parallel = false;
+    private long stopTimeoutMillis = 0;
+    private long replicationTimeoutMillis = 0;
+    private long sentinelTimeoutMillis = 0;
+    private volatile Duration sentinelConvergence;
+    private volatile StartupReport lastStartupReport;
 
     RedisCluster(List<Redis> sentinels, List<Redis> servers) {
+        this(sentinels, servers, servers);
+    }
+
+    RedisCluster(List<Redis> sentinels, List<Redis> servers, List<Redis> masters) {
         this.sentinels.addAll(sentinels);
         this.servers.addAll(servers);
+        this.masters.addAll(masters);
+        for (Redis server : servers) {
+            if (!masters.contains(server)) {
+                this.slaves.add(server);
+            }
+        }
+    }
+
+    /**
+     * Starts masters, then slaves, then sentinels, each tier concurrently and behind a barrier,
+     * and stops all instances concurrently.
+     */
+    void parallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * The total time the parallel stop waits for all instances, zero or negative means no limit.
+     */
+    void stopTimeoutMillis(long stopTimeoutMillis) {
+        this.stopTimeoutMillis = stopTimeoutMillis;
+    }
+
+    /**
+     * How long {@link #start()} waits for every slave to finish its initial sync, zero or negative means no wait.
+     */
+    void replicationTimeoutMillis(long replicationTimeoutMillis) {
+        this.replicationTimeoutMillis = replicationTimeoutMillis;
+    }
+
+    /**
+     * The number of slaves of every master name, which each sentinel must have discovered.
+     */
+    void replicationGroups(Map<String, Integer> slaveCounts) {
+        this.slaveCounts.clear();
+        this.slaveCounts.putAll(slaveCounts);
+    }
+
+    /**
+     * How long {@link #start()} waits for the sentinels to discover each other and all slaves, zero or negative means no wait.
+     */
+    void sentinelTimeoutMillis(long sentinelTimeoutMillis) {
+        this.sentinelTimeoutMillis = sentinelTimeoutMillis;
+    }
+
+    /**
+     * How long the sentinels took to agree on the topology after they started, {@code null} if the last start did not wait for them.
+     */
+    public Duration sentinelConvergence() {
+        return sentinelConvergence;
     }
 
     @Override
@@ -34,16 +112,40 @@ public class RedisCluster implements Redis {
 
     @Override
     public void start() throws EmbeddedRedisException {
-        for(Redis redis : sentinels) {
-            redis.start();
-        }
-        for(Redis redis : servers) {
-            redis.start();
+        final StartupReport report = new StartupReport(getClass().getSimpleName() + ports(), "cluster", 0);
+        try {
+            if (parallel) {
+                startParallel(report);
+                return;
+            }
+            Map<Redis, Integer> masterPorts = portsOf(masters);
+            startTier(report, StartupReport.Phase.MASTERS, masters, null);
+            remapMasterPorts(masterPorts);
+            startTier(report, StartupReport.Phase.SLAVES, slaves, null);
+            awaitReplication(report);
+            startTier(report, StartupReport.Phase.SENTINELS, sentinels, null);
+            awaitSentinels(report);
+        } finally {
+            report.instances(instanceReports());
+            lastStartupReport = report;
         }
     }
 
+    /**
+     * How the last {@link #start()} went: the time of each tier and wait, and the reports of every instance.
+     */
+    public StartupReport lastStartupReport() {
+        return lastStartupReport;
+    }
+
     @Override
     public void stop() throws EmbeddedRedisException {
+        if (parallel) {
+            List<Redis> all = new ArrayList<>(sentinels);
+            all.addAll(servers);
+            ParallelUtil.forEach("stop", all, Redis::stop, stopTimeoutMillis);
+            return;
+        }
         for(Redis redis : sentinels) {
             redis.stop();
         }
@@ -68,10 +170,30 @@ public class RedisCluster implements Redis {
         return ports;
     }
 
+    @Override
+    public List<String> unixSockets() {
+        List<String> sockets = new ArrayList<>();
+        for(Redis redis : sentinels) {
+            sockets.addAll(redis.unixSockets());
+        }
+        for(Redis redis : servers) {
+            sockets.addAll(redis.unixSockets());
+        }
+        return sockets;
+    }
+
     public List<Redis> sentinels() {
         return Lists.newLinkedList(sentinels);
     }
 
+    /**
+     * The current master of every replication group: after {@link #failover(String)} or {@link #killMaster(String)},
+     * the promoted slave replaces the old master, which becomes a slave.
+     */
+    public synchronized List<Redis> masters() {
+        return Lists.newLinkedList(masters);
+    }
+
     public List<Integer> sentinelPorts() {
         List<Integer> ports = new ArrayList<>();
         for(Redis redis : sentinels) {
@@ -108,8 +230,369 @@ public class RedisCluster implements Redis {
         return ports;
     }
 
+    /**
+     * Forces a failover of the master with {@code SENTINEL FAILOVER}, and waits for the sentinels to announce the new master.
+     */
+    public FailoverReport failover(String masterName) throws EmbeddedRedisException {
+        return failover(masterName, DEFAULT_FAILOVER_TIMEOUT_MILLIS);
+    }
+
+    public FailoverReport failover(String masterName, long timeoutMillis) throws EmbeddedRedisException {
+        return awaitSwitchMaster(masterName, timeoutMillis,
+            (connection, masterPort) -> connection.execute("SENTINEL", "FAILOVER", masterName));
+    }
+
+    /**
+     * Kills the process of the master with {@code SIGKILL}, and waits for the sentinels to detect it and announce the
+     * new master. The killed master stays stopped, so the cluster is no longer {@link #isActive()}.
+     */
+    public FailoverReport killMaster(String masterName) throws EmbeddedRedisException {
+        return killMaster(masterName, DEFAULT_FAILOVER_TIMEOUT_MILLIS);
+    }
+
+    public FailoverReport killMaster(String masterName, long timeoutMillis) throws EmbeddedRedisException {
+        return awaitSwitchMaster(masterName, timeoutMillis, (connection, masterPort) -> {
+            for (Redis server : servers) {
+                if (server.ports().contains(masterPort) && server instanceof AbstractRedisInstance) {
+                    ((AbstractRedisInstance) server).stop(StopStrategy.KILL);
+                    return;
+                }
+            }
+            throw new EmbeddedRedisException("No server of this cluster listens on the port " + masterPort + " of " + masterName);
+        });
+    }
+
     public static RedisClusterBuilder builder() {
         return new RedisClusterBuilder();
     }
 
+    // --------------------------------------------------------------------private methods
+
+    private void startParallel(StartupReport report) {
+        List<Redis> started = new ArrayList<>();
+        try {
+            Map<Redis, Integer> masterPorts = portsOf(masters);
+            startTier(report, StartupReport.Phase.MASTERS, masters, started);
+            remapMasterPorts(masterPorts);
+            startTier(report, StartupReport.Phase.SLAVES, slaves, started);
+            awaitReplication(report);
+            startTier(report, StartupReport.Phase.SENTINELS, sentinels, started);
+            awaitSentinels(report);
+        } catch (EmbeddedRedisException e) {
+            try {
+                ParallelUtil.forEach("stop", started, Redis::stop, stopTimeoutMillis);
+            } catch (EmbeddedRedisException stopFailure) {
+                e.addSuppressed(stopFailure);
+            }
+            throw e;
+        }
+    }
+
+    private static Map<Redis, Integer> portsOf(List<Redis> instances) {
+        Map<Redis, Integer> ports = new HashMap<>();
+        for (Redis redis : instances) {
+            if (!redis.ports().isEmpty()) {
+                ports.put(redis, redis.ports().get(0));
+            }
+        }
+        return ports;
+    }
+
+    /**
+     * A master which had to move to another port because its port was taken, is followed by its slaves and the sentinels.
+     */
+    private void remapMasterPorts(Map<Redis, Integer> portsBeforeStart) {
+        for (Map.Entry<Redis, Integer> entry : portsBeforeStart.entrySet()) {
+            int oldPort = entry.getValue();
+            int newPort = entry.getKey().ports().get(0);
+            if (oldPort == newPort) {
+                continue;
+            }
+            for (Redis redis : slaves) {
+                if (redis instanceof AbstractRedisInstance) {
+                    ((AbstractRedisInstance) redis).masterPortChanged(oldPort, newPort);
+                }
+            }
+            for (Redis redis : sentinels) {
+                if (redis instanceof AbstractRedisInstance) {
+                    ((AbstractRedisInstance) redis).masterPortChanged(oldPort, newPort);
+                }
+            }
+        }
+    }
+
+    /**
+     * Polls {@code INFO replication} of all slaves concurrently, until each one is linked to its master and synced.
+     */
+    private void awaitReplication(StartupReport report) {
+        if (replicationTimeoutMillis <= 0 || slaves.isEmpty()) {
+            return;
+        }
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(replicationTimeoutMillis);
+        report.time(StartupReport.Phase.REPLICATION, () -> {
+            ParallelUtil.forEach("await the replication of", slaves, slave -> awaitCondition(slave,
+                "finish the initial sync", deadline, replicationTimeoutMillis,
+                connection -> isReplicationUp(String.valueOf(connection.execute("INFO", "replication")))), 0);
+            return null;
+        });
+    }
+
+    /**
+     * Polls {@code SENTINEL MASTERS} of all sentinels concurrently, until each one knows every other sentinel
+     * and every slave of every master, and has received the {@code INFO} of every slave.
+     */
+    private void awaitSentinels(StartupReport report) {
+        sentinelConvergence = null;
+        if (sentinelTimeoutMillis <= 0 || sentinels.isEmpty()) {
+            return;
+        }
+        final long begin = System.nanoTime();
+        final long deadline = begin + TimeUnit.MILLISECONDS.toNanos(sentinelTimeoutMillis);
+        final int otherSentinels = sentinels.size() - 1;
+        report.time(StartupReport.Phase.SENTINEL_CONVERGENCE, () -> {
+            ParallelUtil.forEach("await the convergence of", sentinels, sentinel -> awaitCondition(sentinel,
+                "discover " + otherSentinels + " other sentinels and the slaves " + slaveCounts, deadline, sentinelTimeoutMillis,
+                connection -> hasConverged(connection.execute("SENTINEL", "MASTERS"), otherSentinels, slaveCounts)
+                    && areSlavesKnown(connection)), 0);
+            return null;
+        });
+        sentinelConvergence = Duration.ofNanos(System.nanoTime() - begin);
+    }
+
+    static boolean hasConverged(Object sentinelMasters, int otherSentinels, Map<String, Integer> slaveCounts) {
+        Map<String, Map<String, String>> masters = new HashMap<>();
+        for (Object master : (List<?>) sentinelMasters) {
+            Map<String, String> fields = toFields(master);
+            masters.put(fields.get("name"), fields);
+        }
+        for (Map.Entry<String, Integer> group : slaveCounts.entrySet()) {
+            Map<String, String> fields = masters.get(group.getKey());
+            if (fields == null
+                || !Integer.toString(otherSentinels).equals(fields.get("num-other-sentinels"))
+                || !Integer.toString(group.getValue()).equals(fields.get("num-slaves"))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A slave can only be promoted once the sentinel got its {@code INFO}, which is some time after discovering it.
+     */
+    private boolean areSlavesKnown(RespClient connection) throws IOException {
+        for (Map.Entry<String, Integer> group : slaveCounts.entrySet()) {
+            if (group.getValue() > 0 && !areSlavesKnown(connection.execute("SENTINEL", "SLAVES", group.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The sentinel reports an {@code info-refresh} of {@code 0} for a slave whose {@code INFO} it never got.
+     */
+    static boolean areSlavesKnown(Object sentinelSlaves) {
+        for (Object slave : (List<?>) sentinelSlaves) {
+            Map<String, String> fields = toFields(slave);
+            String infoRefresh = fields.get("info-refresh");
+            if (!"slave".equals(fields.get("flags")) || infoRefresh == null) {
+                return false;
+            }
+            long sinceRefresh = Long.parseLong(infoRefresh);
+            if (sinceRefresh <= 0 || sinceRefresh > SENTINEL_INFO_PERIOD_MILLIS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A RESP2 flat list of names and values, or a RESP3 map.
+     */
+    private static Map<String, String> toFields(Object reply) {
+        Map<String, String> fields = new HashMap<>();
+        if (reply instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) reply).entrySet()) {
+                fields.put(String.valueOf(entry.getKey()), String.valueOf(entry.getValue()));
+            }
+            return fields;
+        }
+        List<?> list = (List<?>) reply;
+        for (int i = 0; i + 1 < list.size(); i += 2) {
+            fields.put(String.valueOf(list.get(i)), String.valueOf(list.get(i + 1)));
+        }
+        return fields;
+    }
+
+    /**
+     * Subscribes to {@code +switch-master} on a sentinel before triggering the failover, so the event can not be missed.
+     */
+    private FailoverReport awaitSwitchMaster(String masterName, long timeoutMillis, Trigger trigger) {
+        final Redis sentinel = activeSentinel();
+        final String host = ((AbstractRedisInstance) sentinel).host();
+        final int port = sentinel.ports().get(0);
+        final int timeout = (int) Math.min(timeoutMillis, Integer.MAX_VALUE);
+        try (RespClient events = RespClient.connect(host, port, timeout);
+             RespClient commands = RespClient.connect(host, port)) {
+            events.execute("SUBSCRIBE", "+switch-master");
+            final List<?> address = (List<?>) commands.execute("SENTINEL", "GET-MASTER-ADDR-BY-NAME", masterName);
+            if (address == null) {
+                throw new EmbeddedRedisException("The sentinels do not monitor a master named " + masterName);
+            }
+            final int oldPort = Integer.parseInt(String.valueOf(address.get(1)));
+            final long begin = System.nanoTime();
+            final long deadline = begin + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            trigger.fire(commands, oldPort);
+            while (System.nanoTime() - deadline < 0) {
+                // message, +switch-master, "<name> <old ip> <old port> <new ip> <new port>"
+                List<?> message = (List<?>) events.receive();
+                String[] event = String.valueOf(message.get(2)).split(" ");
+                if (event.length == 5 && event[0].equals(masterName)) {
+                    final int newPort = Integer.parseInt(event[4]);
+                    promote(oldPort, newPort);
+                    return new FailoverReport(masterName, oldPort, newPort, Duration.ofNanos(System.nanoTime() - begin));
+                }
+            }
+            throw new EmbeddedRedisException("No failover of " + masterName + " within " + timeoutMillis + "ms");
+        } catch (SocketTimeoutException e) {
+            throw new EmbeddedRedisException("No failover of " + masterName + " within " + timeoutMillis + "ms", e);
+        } catch (IOException | RuntimeException e) {
+            if (e instanceof EmbeddedRedisException) {
+                throw (EmbeddedRedisException) e;
+            }
+            throw new EmbeddedRedisException("Failover of " + masterName + " failed", e);
+        }
+    }
+
+    /**
+     * Swaps the old master and the promoted slave, the promoted slave keeps the place of the old master in
+     * {@link #masters()} so that the replication groups keep their order. The replication of every instance is
+     * rewritten as the sentinels left it, so that a restart brings back the same topology.
+     */
+    private synchronized void promote(int oldPort, int newPort) {
+        final Redis oldMaster = serverOn(oldPort);
+        final Redis newMaster = serverOn(newPort);
+        final int index = masters.indexOf(oldMaster);
+        if (oldMaster == null || newMaster == null || index < 0) {
+            return;
+        }
+        masters.set(index, newMaster);
+        slaves.remove(newMaster);
+        slaves.add(oldMaster);
+        if (!(newMaster instanceof AbstractRedisInstance) || !(oldMaster instanceof AbstractRedisInstance)) {
+            return;
+        }
+        ((AbstractRedisInstance) newMaster).replicaOf(null, 0);
+        ((AbstractRedisInstance) oldMaster).replicaOf(((AbstractRedisInstance) newMaster).host(), newPort);
+        for (Redis redis : slaves) {
+            if (redis != oldMaster && redis instanceof AbstractRedisInstance) {
+                ((AbstractRedisInstance) redis).masterPortChanged(oldPort, newPort);
+            }
+        }
+        for (Redis redis : sentinels) {
+            if (redis instanceof AbstractRedisInstance) {
+                ((AbstractRedisInstance) redis).masterPortChanged(oldPort, newPort);
+            }
+        }
+    }
+
+    private Redis serverOn(int port) {
+        for (Redis server : servers) {
+            if (server.ports().contains(port)) {
+                return server;
+            }
+        }
+        return null;
+    }
+
+    private Redis activeSentinel() {
+        for (Redis sentinel : sentinels) {
+            if (sentinel.isActive() && !sentinel.ports().isEmpty() && sentinel instanceof AbstractRedisInstance) {
+                return sentinel;
+            }
+        }
+        throw new EmbeddedRedisException("No running sentinel in this cluster");
+    }
+
+    private interface Trigger {
+        void fire(RespClient sentinel, int masterPort) throws IOException;
+    }
+
+    static boolean isReplicationUp(String info) {
+        boolean linked = false;
+        boolean synced = false;
+        for (String line : info.split("\r?\n")) {
+            linked |= line.equals("master_link_status:up");
+            synced |= line.equals("master_sync_in_progress:0");
+        }
+        return linked && synced;
+    }
+
+    /**
+     * Polls the instance on one connection with a growing interval, until the check passes or the deadline is reached.
+     */
+    private static void awaitCondition(Redis instance, String condition, long deadline, long timeoutMillis,
+                                       Check check) {
+        if (instance.ports().isEmpty()) {
+            return;
+        }
+        final String host = instance instanceof AbstractRedisInstance
+            ? ((AbstractRedisInstance) instance).host() : AbstractRedisInstance.DEFAULT_HOST;
+        try (RespClient connection = RespClient.connect(host, instance.ports().get(0))) {
+            long interval = MIN_POLL_INTERVAL_NANOS;
+            while (!check.test(connection)) {
+                if (System.nanoTime() - deadline > 0) {
+                    throw new EmbeddedRedisException(instance + " did not " + condition + " within " + timeoutMillis + "ms");
+                }
+                LockSupport.parkNanos(interval);
+                interval = Math.min(interval << 1, MAX_POLL_INTERVAL_NANOS);
+            }
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Lost the connection to " + instance + " while waiting to " + condition, e);
+        }
+    }
+
+    private interface Check {
+        boolean test(RespClient connection) throws IOException;
+    }
+
+    /**
+     * Starts the instances one after the other, or concurrently when {@code started} collects the started ones.
+     */
+    private static void startTier(StartupReport report, StartupReport.Phase phase, List<Redis> tier, List<Redis> started) {
+        if (tier.isEmpty()) {
+            return;
+        }
+        report.time(phase, () -> {
+            if (started == null) {
+                for (Redis redis : tier) {
+                    redis.start();
+                }
+                return null;
+            }
+            try {
+                ParallelUtil.forEach("start", tier, Redis::start, 0);
+            } finally {
+                for (Redis redis : tier) {
+                    if (redis.isActive()) {
+                        started.add(redis);
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private List<StartupReport> instanceReports() {
+        List<StartupReport> reports = new ArrayList<>();
+        List<Redis> all = new ArrayList<>(servers);
+        all.addAll(sentinels);
+        for (Redis redis : all) {
+            if (redis instanceof AbstractRedisInstance && ((AbstractRedisInstance) redis).lastStartupReport() != null) {
+                reports.add(((AbstractRedisInstance) redis).lastStartupReport());
+            }
+        }
+        return reports;
+    }
+
 }
@@ -1,15 +1,24 @@
 package redis.embedded;
 
+import redis.embedded.exceptions.RedisBuildingException;
+import redis.embedded.ports.DisjointPortProvider;
 import redis.embedded.ports.EphemeralPortProvider;
 import redis.embedded.ports.PredefinedPortProvider;
 import redis.embedded.ports.SequencePortProvider;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 public class RedisClusterBuilder {
+    static final long FAST_DOWN_AFTER_MILLIS = 200L;
+    static final long FAST_FAILOVER_TIMEOUT_MILLIS = 1000L;
 
     private RedisSentinelBuilder sentinelBuilder = RedisSentinel.builder();
     private RedisServerBuilder serverBuilder = RedisServer.builder();
@@ -19,6 +28,12 @@ public class RedisClusterBuilder {
     private PortProvider sentinelPortProvider = new SequencePortProvider(26379);
     private PortProvider replicationGroupPortProvider = new SequencePortProvider(6379);
     private final List<ReplicationGroup> groups = new LinkedList<>();
+    private boolean parallel = false;
+    private boolean unixSockets = false;
+    private long stopTimeoutMillis = 30000L;
+    private long replicationTimeoutMillis = 0;
+    private long sentinelTimeoutMillis = 0;
+    private boolean fastFailover = false;
 
     RedisClusterBuilder() {
     }
@@ -54,6 +69,16 @@ public class RedisClusterBuilder {
         return this;
     }
 
+    /**
+     * Takes sentinel and server ports from the blocks of ports reserved for this JVM, see
+     * {@link DisjointPortProvider#shared()}.
+     */
+    public RedisClusterBuilder disjointPorts() {
+        final DisjointPortProvider portProvider = DisjointPortProvider.shared();
+        this.sentinelPortProvider = portProvider;
+        this.replicationGroupPortProvider = portProvider;
+        return this;
+    }
 
     public RedisClusterBuilder ephemeral() {
         ephemeralSentinels();
@@ -71,6 +96,11 @@ public class RedisClusterBuilder {
         return this;
     }
 
+    public RedisClusterBuilder serverStartingPort(int startingPort) {
+        this.replicationGroupPortProvider = new SequencePortProvider(startingPort);
+        return this;
+    }
+
     public RedisClusterBuilder quorumSize(int quorumSize) {
         this.quorumSize = quorumSize;
         return this;
@@ -81,34 +111,139 @@ public class RedisClusterBuilder {
         return this;
     }
 
+    /**
+     * Lets every server listen on a unix domain socket in a temporary directory as well, see {@link RedisCluster#unixSockets()}.
+     * Replication and sentinels keep using TCP.
+     */
+    public RedisClusterBuilder unixSockets() {
+        this.unixSockets = true;
+        return this;
+    }
+
+    /**
+     * Starts all masters concurrently, then all slaves, then all sentinels, and stops every instance concurrently.
+     */
+    public RedisClusterBuilder parallel() {
+        this.parallel = true;
+        return this;
+    }
+
+    /**
+     * The total time a parallel stop waits for all instances to terminate.
+     */
+    public RedisClusterBuilder stopTimeoutMillis(long stopTimeoutMillis) {
+        this.stopTimeoutMillis = stopTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * Makes {@code start()} wait until every slave reports {@code master_link_status:up} and
+     * {@code master_sync_in_progress:0}, before the sentinels are started.
+     */
+    public RedisClusterBuilder awaitReplication() {
+        return awaitReplication(30000L);
+    }
+
+    public RedisClusterBuilder awaitReplication(long timeoutMillis) {
+        this.replicationTimeoutMillis = timeoutMillis;
+        return this;
+    }
+
+    /**
+     * Makes {@code start()} wait until every sentinel reports the expected {@code num-other-sentinels} and
+     * {@code num-slaves} for every master, see {@link RedisCluster#sentinelConvergence()}.
+     */
+    public RedisClusterBuilder awaitSentinels() {
+        return awaitSentinels(60000L);
+    }
+
+    public RedisClusterBuilder awaitSentinels(long timeoutMillis) {
+        this.sentinelTimeoutMillis = timeoutMillis;
+        return this;
+    }
+
+    /**
+     * Sentinels consider a master down after 200ms instead of a minute, and retry a failover after 2 seconds
+     * instead of 6 minutes, see {@link RedisCluster#failover(String)} and {@link RedisCluster#killMaster(String)}.
+     */
+    public RedisClusterBuilder fastFailover() {
+        this.fastFailover = true;
+        return this;
+    }
+
     public RedisCluster build() {
-        return new RedisCluster(buildSentinels(), buildServers());
+        final List<Redis> sentinels = buildSentinels();
+        final List<Redis> masters = new ArrayList<>();
+        final List<Redis> servers = buildServers(masters);
+        RedisCluster cluster = new RedisCluster(sentinels, servers, masters);
+        cluster.parallel(parallel);
+        cluster.stopTimeoutMillis(stopTimeoutMillis);
+        cluster.replicationTimeoutMillis(replicationTimeoutMillis);
+        cluster.sentinelTimeoutMillis(sentinelTimeoutMillis);
+        final Map<String, Integer> slaveCounts = new LinkedHashMap<>();
+        for (ReplicationGroup g : groups) {
+            slaveCounts.put(g.masterName, g.slavePorts.size());
+        }
+        cluster.replicationGroups(slaveCounts);
+        return cluster;
+    }
+
+    /**
+     * Ports from a provider can be replaced when taken, the cluster points slaves and sentinels to moved masters.
+     * Explicitly listed ports are kept.
+     */
+    static void retryOnPortConflict(AbstractRedisInstance instance, PortProvider portProvider) {
+        if (!(portProvider instanceof PredefinedPortProvider)) {
+            instance.portProvider(portProvider, AbstractRedisInstance.DEFAULT_PORT_RETRIES);
+        }
     }
 
     // --------------------------------------------------------------------private methods
 
-    private List<Redis> buildServers() {
+    private List<Redis> buildServers(List<Redis> masters) {
+        final File socketDir = unixSockets ? createSocketDir() : null;
         List<Redis> servers = new ArrayList<>();
         for(ReplicationGroup g : groups) {
-            servers.add(buildMaster(g));
-            buildSlaves(servers, g);
+            Redis master = buildMaster(g, socketDir);
+            masters.add(master);
+            servers.add(master);
+            buildSlaves(servers, g, socketDir);
         }
         return servers;
     }
 
-    private void buildSlaves(List<Redis> servers, ReplicationGroup g) {
+    private static File createSocketDir() {
+        try {
+            File dir = Files.createTempDirectory("embedded-redis-sockets").toFile();
+            dir.deleteOnExit();
+            return dir;
+        } catch (IOException e) {
+            throw new RedisBuildingException("Could not create unix socket directory", e);
+        }
+    }
+
+    private static String socketPath(File socketDir, int port) {
+        return socketDir != null ? new File(socketDir, "redis-" + port + ".sock").getAbsolutePath() : null;
+    }
+
+    private void buildSlaves(List<Redis> servers, ReplicationGroup g, File socketDir) {
         for (Integer slavePort : g.slavePorts) {
             serverBuilder.reset();
             serverBuilder.port(slavePort);
+            serverBuilder.unixSocket(socketPath(socketDir, slavePort));
             serverBuilder.slaveOf("localhost", g.masterPort);
             final RedisServer slave = serverBuilder.build();
+            retryOnPortConflict(slave, replicationGroupPortProvider);
             servers.add(slave);
         }
     }
 
-    private Redis buildMaster(ReplicationGroup g) {
+    private Redis buildMaster(ReplicationGroup g, File socketDir) {
         serverBuilder.reset();
-        return serverBuilder.port(g.masterPort).build();
+        serverBuilder.unixSocket(socketPath(socketDir, g.masterPort));
+        final RedisServer master = serverBuilder.port(g.masterPort).build();
+        retryOnPortConflict(master, replicationGroupPortProvider);
+        return master;
     }
 
     private List<Redis> buildSentinels() {
@@ -120,16 +255,33 @@ public class RedisClusterBuilder {
         return sentinels;
     }
 
+    /**
+     * The fast failover timings only apply while the sentinel is built, the sentinel builder keeps its own.
+     */
     private Redis buildSentinel() {
-        sentinelBuilder.reset();
-        sentinelBuilder.port(nextSentinelPort());
-        for(ReplicationGroup g : groups) {
-            sentinelBuilder.masterName(g.masterName);
-            sentinelBuilder.masterPort(g.masterPort);
-            sentinelBuilder.quorumSize(quorumSize);
-            sentinelBuilder.addDefaultReplicationGroup();
+        final long downAfterMilliseconds = sentinelBuilder.downAfterMilliseconds();
+        final long failoverTimeout = sentinelBuilder.failoverTimeout();
+        final RedisSentinel sentinel;
+        try {
+            sentinelBuilder.reset();
+            sentinelBuilder.port(nextSentinelPort());
+            if (fastFailover) {
+                sentinelBuilder.downAfterMilliseconds(FAST_DOWN_AFTER_MILLIS);
+                sentinelBuilder.failoverTimeout(FAST_FAILOVER_TIMEOUT_MILLIS);
+            }
+            for(ReplicationGroup g : groups) {
+                sentinelBuilder.masterName(g.masterName);
+                sentinelBuilder.masterPort(g.masterPort);
+                sentinelBuilder.quorumSize(quorumSize);
+                sentinelBuilder.addDefaultReplicationGroup();
+            }
+            sentinel = sentinelBuilder.build();
+        } finally {
+            sentinelBuilder.downAfterMilliseconds(downAfterMilliseconds);
+            sentinelBuilder.failoverTimeout(failoverTimeout);
         }
-        return sentinelBuilder.build();
+        retryOnPortConflict(sentinel, sentinelPortProvider);
+        return sentinel;
     }
 
     private int nextSentinelPort() {
@@ -14,6 +14,7 @@ import java.util.Map;
 public class RedisExecProvider {
 
     private final Map<OsArchitecture, String> executables = Maps.newHashMap();
+    private volatile File resolved;
 
     public static RedisExecProvider defaultProvider() {
         return new RedisExecProvider();
@@ -43,10 +44,29 @@ public class RedisExecProvider {
     public RedisExecProvider override(OS os, Architecture arch, String executable) {
         Preconditions.checkNotNull(executable);
         executables.put(new OsArchitecture(os, arch), executable);
+        resolved = null;
         return this;
     }
 
+    /**
+     * Returns the executable for this machine, resolved (and extracted if needed) only on the first call.
+     */
     public File get() throws IOException {
+        File file = resolved;
+        if (file == null || !file.exists()) {
+            synchronized (this) {
+                file = resolved;
+                if (file == null || !file.exists()) {
+                    resolved = file = resolve();
+                }
+            }
+        }
+        return file;
+    }
+
+    // --------------------------------------------------------------------private methods
+
+    private File resolve() throws IOException {
         OsArchitecture osArch = OsArchitecture.detect();
 
         if (!executables.containsKey(osArch)) {
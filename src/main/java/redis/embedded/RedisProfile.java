@@ -0,0 +1,185 @@
+package redis.embedded;
+
+import redis.embedded.exceptions.RedisBuildingException;
+
+import java.util.*;
+
+/**
+ * A named set of configuration directives which are tuned together, see {@link RedisServerBuilder#profile(RedisProfile)}.
+ *
+ * <p>Profiles are immutable and compose with {@link #and(RedisProfile)}, where the later profile wins for
+ * directives both of them set. Directives set explicitly with {@code setting(String)} or a config file always
+ * win over profiles. Directives which need a minimum server version are checked against the version of the
+ * executable when the server is built.
+ */
+public final class RedisProfile {
+
+    private static final Map<String, RedisVersion> MIN_VERSIONS = new HashMap<>();
+
+    static {
+        MIN_VERSIONS.put("lazyfree-lazy-eviction", RedisVersion.parse("4.0.0"));
+        MIN_VERSIONS.put("lazyfree-lazy-expire", RedisVersion.parse("4.0.0"));
+        MIN_VERSIONS.put("lazyfree-lazy-server-del", RedisVersion.parse("4.0.0"));
+        MIN_VERSIONS.put("aof-use-rdb-preamble", RedisVersion.parse("4.0.0"));
+        MIN_VERSIONS.put("replica-lazy-flush", RedisVersion.parse("5.0.0"));
+        MIN_VERSIONS.put("dynamic-hz", RedisVersion.parse("5.0.0"));
+        MIN_VERSIONS.put("io-threads", RedisVersion.parse("6.0.0"));
+        MIN_VERSIONS.put("io-threads-do-reads", RedisVersion.parse("6.0.0"));
+        MIN_VERSIONS.put("lazyfree-lazy-user-del", RedisVersion.parse("6.0.0"));
+        MIN_VERSIONS.put("lazyfree-lazy-user-flush", RedisVersion.parse("6.2.0"));
+        MIN_VERSIONS.put("appenddirname", RedisVersion.parse("7.0.0"));
+    }
+
+    private final String name;
+    private final Map<String, String> directives;
+
+    private RedisProfile(String name, Map<String, String> directives) {
+        this.name = name;
+        this.directives = Collections.unmodifiableMap(new LinkedHashMap<>(directives));
+    }
+
+    /**
+     * An empty profile, to be filled with {@link #with(String, String)}.
+     */
+    public static RedisProfile of(String name) {
+        return new RedisProfile(name, Collections.emptyMap());
+    }
+
+    /**
+     * No persistence at all, and memory released in background threads.
+     */
+    public static RedisProfile inMemoryFast() {
+        return of("in-memory-fast")
+            .with("save", "\"\"")
+            .with("appendonly", "no")
+            .with("lazyfree-lazy-eviction", "yes")
+            .with("lazyfree-lazy-expire", "yes")
+            .with("lazyfree-lazy-server-del", "yes")
+            .with("lazyfree-lazy-user-del", "yes")
+            .with("replica-lazy-flush", "yes");
+    }
+
+    /**
+     * Every write appended to the AOF and fsynced once per second, without RDB save points.
+     */
+    public static RedisProfile durableAof() {
+        return of("durable-aof")
+            .with("save", "\"\"")
+            .with("appendonly", "yes")
+            .with("appendfsync", "everysec")
+            .with("aof-use-rdb-preamble", "yes")
+            .with("no-appendfsync-on-rewrite", "no");
+    }
+
+    /**
+     * Threaded I/O with one thread per core (at most 4) besides the main thread, and a higher event loop frequency.
+     */
+    public static RedisProfile highConcurrency() {
+        return highConcurrency(Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1)));
+    }
+
+    public static RedisProfile highConcurrency(int ioThreads) {
+        return of("high-concurrency")
+            .with("io-threads", Integer.toString(ioThreads))
+            .with("io-threads-do-reads", ioThreads > 1 ? "yes" : "no")
+            .with("hz", "100")
+            .with("dynamic-hz", "yes")
+            .with("tcp-backlog", "511")
+            .with("maxclients", "10000");
+    }
+
+    /**
+     * A cache: bounded memory, least recently used keys evicted in the background.
+     *
+     * @param maxmemory for example {@code 256mb}
+     */
+    public static RedisProfile evictionLru(String maxmemory) {
+        return of("eviction-lru")
+            .with("maxmemory", maxmemory)
+            .with("maxmemory-policy", "allkeys-lru")
+            .with("maxmemory-samples", "5")
+            .with("lazyfree-lazy-eviction", "yes");
+    }
+
+    /**
+     * Returns a copy with the directive set (or replaced), for example {@code with("hz", "50")}.
+     */
+    public RedisProfile with(String directive, String value) {
+        Map<String, String> merged = new LinkedHashMap<>(directives);
+        merged.put(normalize(directive), value);
+        return new RedisProfile(name, merged);
+    }
+
+    /**
+     * Returns the composition of both profiles, the other profile wins for directives both of them set.
+     */
+    public RedisProfile and(RedisProfile other) {
+        Map<String, String> merged = new LinkedHashMap<>(directives);
+        merged.putAll(other.directives);
+        return new RedisProfile(name + "+" + other.name, merged);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Map<String, String> directives() {
+        return directives;
+    }
+
+    @Override
+    public String toString() {
+        return "RedisProfile[" + name + "]" + directives;
+    }
+
+    /**
+     * The config file lines, leaving out the directives which are set explicitly.
+     */
+    List<String> configLines(Set<String> explicit) {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, String> entry : directives.entrySet()) {
+            if (!explicit.contains(entry.getKey())) {
+                lines.add(entry.getKey() + " " + entry.getValue());
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Whether any directive needs a minimum server version, and so the version of the executable must be known.
+     */
+    boolean needsVersion() {
+        for (String directive : directives.keySet()) {
+            if (MIN_VERSIONS.containsKey(directive)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void validate(RedisVersion version) {
+        List<String> unsupported = new ArrayList<>();
+        for (String directive : directives.keySet()) {
+            RedisVersion min = MIN_VERSIONS.get(directive);
+            if (min != null && version.compareTo(min) < 0) {
+                unsupported.add(directive + " (since " + min + ")");
+            }
+        }
+        if (!unsupported.isEmpty()) {
+            throw new RedisBuildingException("Profile " + name + " is not supported by redis " + version + ": " + unsupported);
+        }
+    }
+
+    /**
+     * The directive name of a config line, lower case as redis compares them case-insensitively.
+     */
+    static String directiveOf(String configLine) {
+        String trimmed = configLine.trim();
+        int space = trimmed.indexOf(' ');
+        return normalize(space < 0 ? trimmed : trimmed.substring(0, space));
+    }
+
+    private static String normalize(String directive) {
+        return directive.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,7 +1,15 @@
 package redis.embedded;
 
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
 
 public class RedisSentinel extends AbstractRedisInstance {
     private static final String REDIS_READY_PATTERN = ".*Sentinel (runid|ID) is.*";
@@ -15,6 +23,27 @@ public class RedisSentinel extends AbstractRedisInstance {
         return REDIS_READY_PATTERN;
     }
 
+    @Override
+    String role() {
+        return "sentinel";
+    }
+
+    /**
+     * Rewrites the {@code sentinel monitor} lines of the config file which point to the old port.
+     */
+    @Override
+    void masterPortChanged(int oldPort, int newPort) {
+        Path conf = Paths.get(args().get(1));
+        Pattern monitor = Pattern.compile("(?m)^(sentinel monitor \\S+ \\S+ )" + oldPort + "(\\s)");
+        try {
+            String content = new String(Files.readAllBytes(conf), StandardCharsets.UTF_8);
+            String rewritten = monitor.matcher(content).replaceAll("$1" + newPort + "$2");
+            Files.write(conf, rewritten.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Could not point " + this + " to the new master port " + newPort, e);
+        }
+    }
+
     public static RedisSentinelBuilder builder() {
         return new RedisSentinelBuilder();
     }
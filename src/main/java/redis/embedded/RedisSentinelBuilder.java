@@ -3,6 +3,8 @@ package redis.embedded;
 import com.google.common.base.Preconditions;
 import com.google.common.io.Files;
 import redis.embedded.exceptions.RedisBuildingException;
+import redis.embedded.log.LogSink;
+import redis.embedded.log.LogSinks;
 
 import java.io.File;
 import java.io.IOException;
@@ -23,6 +25,8 @@ public class RedisSentinelBuilder {
     private RedisExecProvider redisExecProvider = RedisExecProvider.defaultProvider();
     private String bind="127.0.0.1";
     private Integer port = 26379;
+    private PortProvider portProvider;
+    private int portRetries = AbstractRedisInstance.DEFAULT_PORT_RETRIES;
     private int masterPort = 6379;
     private String masterName = "mymaster";
     private long downAfterMilliseconds = 60000L;
@@ -30,6 +34,11 @@ public class RedisSentinelBuilder {
     private int parallelSyncs = 1;
     private int quorumSize = 1;
     private String sentinelConf;
+    private long startupTimeoutMillis = AbstractRedisInstance.DEFAULT_STARTUP_TIMEOUT_MILLIS;
+    private int outputBufferSize = AbstractRedisInstance.DEFAULT_OUTPUT_BUFFER_SIZE;
+    private File outputFile;
+    private LogSink logSink = LogSinks.consoleErrors();
+    private StopStrategy stopStrategy = StopStrategy.DEFAULT;
 
     private StringBuilder redisConfigBuilder;
 
@@ -51,6 +60,23 @@ public class RedisSentinelBuilder {
         return this;
     }
 
+    /**
+     * Takes the port from the provider instead of {@link #port(Integer)}, and a new one from it if the port
+     * turns out to be taken when the sentinel starts.
+     */
+    public RedisSentinelBuilder portProvider(PortProvider portProvider) {
+        this.portProvider = portProvider;
+        return this;
+    }
+
+    /**
+     * How many times a sentinel with a {@link #portProvider(PortProvider)} retries on a new port.
+     */
+    public RedisSentinelBuilder portRetries(int portRetries) {
+        this.portRetries = portRetries;
+        return this;
+    }
+
     public RedisSentinelBuilder masterPort(Integer masterPort) {
         this.masterPort = masterPort;
         return this;
@@ -76,11 +102,56 @@ public class RedisSentinelBuilder {
         return this;
     }
 
+    long downAfterMilliseconds() {
+        return downAfterMilliseconds;
+    }
+
+    long failoverTimeout() {
+        return failoverTimeout;
+    }
+
     public RedisSentinelBuilder parallelSyncs(int parallelSyncs) {
         this.parallelSyncs = parallelSyncs;
         return this;
     }
 
+    public RedisSentinelBuilder startupTimeoutMillis(long startupTimeoutMillis) {
+        this.startupTimeoutMillis = startupTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * How many of the most recent output lines are kept in memory, see {@code recentOutput()}.
+     */
+    public RedisSentinelBuilder outputBufferSize(int outputBufferSize) {
+        this.outputBufferSize = outputBufferSize;
+        return this;
+    }
+
+    /**
+     * Appends the process output to the file, without any JVM thread reading it.
+     */
+    public RedisSentinelBuilder outputFile(File outputFile) {
+        this.outputFile = outputFile;
+        return this;
+    }
+
+    /**
+     * Where the process output goes besides the in-memory ring, see {@link LogSinks}.
+     */
+    public RedisSentinelBuilder logSink(LogSink logSink) {
+        this.logSink = logSink;
+        return this;
+    }
+
+    /**
+     * How {@code stop()} ends the process, by default {@code SHUTDOWN NOSAVE}, then {@code SIGTERM}, then {@code SIGKILL}.
+     */
+    public RedisSentinelBuilder stopStrategy(StopStrategy stopStrategy) {
+        this.stopStrategy = stopStrategy;
+        return this;
+    }
+
     public RedisSentinelBuilder configFile(String redisConf) {
         if (redisConfigBuilder != null) {
             throw new RedisBuildingException("Redis configuration is already partially build using setting(String) method!");
@@ -104,12 +175,27 @@ public class RedisSentinelBuilder {
     }
 
     public RedisSentinel build() {
-        tryResolveConfAndExec();
+        if (portProvider != null) {
+            port = portProvider.next();
+        }
+        final StartupReport buildReport = new StartupReport();
+        tryResolveConfAndExec(buildReport);
         List<String> args = buildCommandArgs();
-        return new RedisSentinel(args, port);
+        RedisSentinel sentinel = new RedisSentinel(args, port);
+        buildReport.identify(sentinel.toString(), sentinel.role(), port);
+        sentinel.buildReport(buildReport);
+        sentinel.portProvider(portProvider, portRetries);
+        sentinel.host(AbstractRedisInstance.connectableHost(bind));
+        sentinel.startupTimeoutMillis(startupTimeoutMillis);
+        sentinel.outputBufferSize(outputBufferSize);
+        sentinel.outputFile(outputFile);
+        sentinel.logSink(logSink);
+        sentinel.stopStrategy(stopStrategy);
+        return sentinel;
     }
 
     public void reset() {
+        this.portProvider = null;
         this.redisConfigBuilder = null;
         this.sentinelConf = null;
     }
@@ -123,12 +209,15 @@ public class RedisSentinelBuilder {
 
     // --------------------------------------------------------------------private methods
 
-    private void tryResolveConfAndExec() {
+    private void tryResolveConfAndExec(StartupReport buildReport) {
         try {
             if (sentinelConf == null) {
-                resolveSentinelConf();
+                buildReport.time(StartupReport.Phase.CONFIGURE, () -> {
+                    resolveSentinelConf();
+                    return null;
+                });
             }
-            executable = redisExecProvider.get();
+            executable = buildReport.time(StartupReport.Phase.EXTRACT, redisExecProvider::get);
         } catch (Exception e) {
             throw new RedisBuildingException("Could not build sentinel instance", e);
         }
@@ -3,13 +3,18 @@ package redis.embedded;
 import com.google.common.base.Strings;
 import com.google.common.io.Files;
 import redis.embedded.exceptions.RedisBuildingException;
+import redis.embedded.log.LogSink;
+import redis.embedded.log.LogSinks;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class RedisServerBuilder {
     private static final String LINE_SEPARATOR = System.getProperty("line.separator");
@@ -19,9 +24,20 @@ public class RedisServerBuilder {
     private String bind = "127.0.0.1";
     private int port = 6379;
     private int tlsPort = 0;
+    private String unixSocket;
+    private int unixSocketPerm = 0;
+    private PortProvider portProvider;
+    private int portRetries = AbstractRedisInstance.DEFAULT_PORT_RETRIES;
     private InetSocketAddress slaveOf;
     private String redisConf;
-    private File executable;
+    private long startupTimeoutMillis = AbstractRedisInstance.DEFAULT_STARTUP_TIMEOUT_MILLIS;
+    private int outputBufferSize = AbstractRedisInstance.DEFAULT_OUTPUT_BUFFER_SIZE;
+    private File outputFile;
+    private LogSink logSink = LogSinks.consoleErrors();
+    private StopStrategy stopStrategy = StopStrategy.DEFAULT;
+    private RedisProfile profile;
+    private File workingDirectoryParent;
+    private boolean keepWorkingDirectory = false;
 
     private StringBuilder redisConfigBuilder;
 
@@ -43,11 +59,44 @@ public class RedisServerBuilder {
         return this;
     }
 
+    /**
+     * Takes the port from the provider instead of {@link #port(int)}, and a new one from it if the port
+     * turns out to be taken when the server starts.
+     */
+    public RedisServerBuilder portProvider(PortProvider portProvider) {
+        this.portProvider = portProvider;
+        return this;
+    }
+
+    /**
+     * How many times a server with a {@link #portProvider(PortProvider)} retries on a new port.
+     */
+    public RedisServerBuilder portRetries(int portRetries) {
+        this.portRetries = portRetries;
+        return this;
+    }
+
     public RedisServerBuilder tlsPort(int tlsPort) {
         this.tlsPort = tlsPort;
         return this;
     }
 
+    /**
+     * Also listens on this unix domain socket, combine with {@code port(0)} to disable TCP.
+     */
+    public RedisServerBuilder unixSocket(String unixSocket) {
+        this.unixSocket = unixSocket;
+        return this;
+    }
+
+    /**
+     * The permissions of the unix socket file, for example {@code 0700}.
+     */
+    public RedisServerBuilder unixSocketPerm(int unixSocketPerm) {
+        this.unixSocketPerm = unixSocketPerm;
+        return this;
+    }
+
     public RedisServerBuilder slaveOf(String hostname, int port) {
         this.slaveOf = new InetSocketAddress(hostname, port);
         return this;
@@ -58,6 +107,77 @@ public class RedisServerBuilder {
         return this;
     }
 
+    public RedisServerBuilder startupTimeoutMillis(long startupTimeoutMillis) {
+        this.startupTimeoutMillis = startupTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * How many of the most recent output lines are kept in memory, see {@code recentOutput()}.
+     */
+    public RedisServerBuilder outputBufferSize(int outputBufferSize) {
+        this.outputBufferSize = outputBufferSize;
+        return this;
+    }
+
+    /**
+     * Appends the process output to the file, without any JVM thread reading it.
+     */
+    public RedisServerBuilder outputFile(File outputFile) {
+        this.outputFile = outputFile;
+        return this;
+    }
+
+    /**
+     * Where the process output goes besides the in-memory ring, see {@link LogSinks}.
+     */
+    public RedisServerBuilder logSink(LogSink logSink) {
+        this.logSink = logSink;
+        return this;
+    }
+
+    /**
+     * How {@code stop()} ends the process, by default {@code SHUTDOWN NOSAVE}, then {@code SIGTERM}, then {@code SIGKILL}.
+     */
+    public RedisServerBuilder stopStrategy(StopStrategy stopStrategy) {
+        this.stopStrategy = stopStrategy;
+        return this;
+    }
+
+    /**
+     * Creates the private working directory of every server in this directory, instead of {@code java.io.tmpdir}.
+     * The dump, the AOF and the cluster config of a server go there unless {@code dir} is set explicitly.
+     */
+    public RedisServerBuilder workingDirectory(File parent) {
+        this.workingDirectoryParent = parent;
+        return this;
+    }
+
+    /**
+     * Creates the working directories in {@code /dev/shm}, so persistence I/O never reaches a disk.
+     * Falls back to {@code java.io.tmpdir} where there is no {@code /dev/shm}.
+     */
+    public RedisServerBuilder workingDirectoryOnTmpfs() {
+        return workingDirectory(WorkingDirectory.tmpfsOrTemp());
+    }
+
+    /**
+     * Keeps the working directory on stop, by default it is deleted with all its files.
+     */
+    public RedisServerBuilder keepWorkingDirectory(boolean keepWorkingDirectory) {
+        this.keepWorkingDirectory = keepWorkingDirectory;
+        return this;
+    }
+
+    /**
+     * Adds the directives of the profile, composed with the profiles added before; explicit settings win over them.
+     * Unlike the settings, profiles are kept on {@link #reset()}, so they apply to every server a cluster builds.
+     */
+    public RedisServerBuilder profile(RedisProfile profile) {
+        this.profile = this.profile == null ? profile : this.profile.and(profile);
+        return this;
+    }
+
     public RedisServerBuilder configFile(String redisConf) {
         if (redisConfigBuilder != null) {
             throw new RedisBuildingException("Redis configuration is already partially build using setting(String) method!");
@@ -80,39 +200,119 @@ public class RedisServerBuilder {
         return this;
     }
 
+    /**
+     * Builds a new server from the current settings, the builder is left untouched and can build again.
+     */
     public RedisServer build() {
-        setting("bind " + bind);
-        tryResolveConfAndExec();
-        return new RedisServer(port, tlsPort, buildCommandArgs());
+        final StartupReport buildReport = new StartupReport();
+        final File executable = buildReport.time(StartupReport.Phase.EXTRACT, this::tryResolveExec);
+        final String conf = buildReport.time(StartupReport.Phase.CONFIGURE, () -> {
+            if (profile != null && profile.needsVersion()) {
+                profile.validate(RedisVersion.detect(executable));
+            }
+            return tryResolveConf();
+        });
+        final int port = portProvider != null ? portProvider.next() : this.port;
+        RedisServer server = new RedisServer(port, tlsPort, buildCommandArgs(executable, conf, port));
+        buildReport.identify(server.toString(), server.role(), port);
+        server.buildReport(buildReport);
+        server.portProvider(portProvider, portRetries);
+        server.unixSocket(unixSocket);
+        server.host(AbstractRedisInstance.connectableHost(bind));
+        server.startupTimeoutMillis(startupTimeoutMillis);
+        server.outputBufferSize(outputBufferSize);
+        server.outputFile(outputFile);
+        server.logSink(logSink);
+        server.stopStrategy(stopStrategy);
+        server.workingDirectory(new WorkingDirectory(workingDirectoryParent, keepWorkingDirectory));
+        return server;
     }
 
     public void reset() {
-        this.executable = null;
+        this.portProvider = null;
+        this.unixSocket = null;
         this.redisConfigBuilder = null;
         this.slaveOf = null;
         this.redisConf = null;
     }
 
+    /**
+     * The lines given with {@link #setting(String)}, or the {@link #configFile(String)} as an {@code include}, so
+     * that they can be given again after {@link #reset()}.
+     */
+    List<String> settings() {
+        if (redisConf != null) {
+            return Collections.singletonList("include " + new File(redisConf).getAbsolutePath());
+        }
+        List<String> lines = new ArrayList<>();
+        if (redisConfigBuilder != null) {
+            for (String line : redisConfigBuilder.toString().split(LINE_SEPARATOR)) {
+                if (!line.trim().isEmpty()) {
+                    lines.add(line);
+                }
+            }
+        }
+        return lines;
+    }
+
     // --------------------------------------------------------------------private methods
 
-    private void tryResolveConfAndExec() {
-        try {
-            resolveConfAndExec();
-        } catch (IOException e) {
-            throw new RedisBuildingException("Could not build server instance", e);
+    /**
+     * Profile directives come first, so the explicit settings or the included config file override them.
+     */
+    private String tryResolveConf() {
+        if (redisConf != null && profile == null) {
+            return redisConf;
+        }
+        StringBuilder config = new StringBuilder();
+        if (redisConf != null) {
+            appendLines(config, profile.configLines(Collections.emptySet()));
+            config.append("include ").append(new File(redisConf).getAbsolutePath()).append(LINE_SEPARATOR);
+            return writeConf(config);
+        }
+        if (profile != null) {
+            appendLines(config, profile.configLines(explicitDirectives()));
+        }
+        if (redisConfigBuilder != null) {
+            config.append(redisConfigBuilder);
+        }
+        config.append("bind ").append(bind).append(LINE_SEPARATOR);
+        return writeConf(config);
+    }
+
+    private Set<String> explicitDirectives() {
+        Set<String> directives = new HashSet<>();
+        if (redisConfigBuilder != null) {
+            for (String line : redisConfigBuilder.toString().split(LINE_SEPARATOR)) {
+                if (!line.trim().isEmpty()) {
+                    directives.add(RedisProfile.directiveOf(line));
+                }
+            }
+        }
+        directives.add("bind");
+        return directives;
+    }
+
+    private static void appendLines(StringBuilder config, List<String> lines) {
+        for (String line : lines) {
+            config.append(line).append(LINE_SEPARATOR);
         }
     }
 
-    private void resolveConfAndExec() throws IOException {
-        if (redisConf == null && redisConfigBuilder != null) {
+    private String writeConf(StringBuilder config) {
+        try {
             File redisConfigFile = File.createTempFile(resolveConfigName(), ".conf");
             redisConfigFile.deleteOnExit();
-            Files.asCharSink(redisConfigFile, StandardCharsets.UTF_8).write(redisConfigBuilder.toString());
-            redisConf = redisConfigFile.getAbsolutePath();
+            Files.asCharSink(redisConfigFile, StandardCharsets.UTF_8).write(config.toString());
+            return redisConfigFile.getAbsolutePath();
+        } catch (IOException e) {
+            throw new RedisBuildingException("Could not build server instance", e);
         }
+    }
 
+    private File tryResolveExec() {
         try {
-            executable = redisExecProvider.get();
+            return redisExecProvider.get();
         } catch (Exception e) {
             throw new RedisBuildingException("Failed to resolve executable", e);
         }
@@ -122,12 +322,12 @@ public class RedisServerBuilder {
         return CONF_FILENAME + "_" + port;
     }
 
-    private List<String> buildCommandArgs() {
+    private List<String> buildCommandArgs(File executable, String conf, int port) {
         List<String> args = new ArrayList<>();
         args.add(executable.getAbsolutePath());
 
-        if (!Strings.isNullOrEmpty(redisConf)) {
-            args.add(redisConf);
+        if (!Strings.isNullOrEmpty(conf)) {
+            args.add(conf);
         }
 
         args.add("--port");
@@ -138,6 +338,15 @@ public class RedisServerBuilder {
             args.add(Integer.toString(tlsPort));
         }
 
+        if (unixSocket != null) {
+            args.add("--unixsocket");
+            args.add(unixSocket);
+            if (unixSocketPerm > 0) {
+                args.add("--unixsocketperm");
+                args.add(Integer.toOctalString(unixSocketPerm));
+            }
+        }
+
         if (slaveOf != null) {
             args.add("--slaveof");
             args.add(slaveOf.getHostName());
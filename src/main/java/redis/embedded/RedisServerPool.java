@@ -0,0 +1,313 @@
+package redis.embedded;
+
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.exceptions.RedisCommandException;
+import redis.embedded.resp.RespClient;
+import redis.embedded.util.ParallelUtil;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a number of started {@link RedisServer}s warm and leases them out one at a time.
+ *
+ * <p>Closing a {@link Lease} does not stop the server: it is cleaned in the background (clients killed,
+ * {@code FLUSHALL ASYNC}, {@code SCRIPT FLUSH}, {@code FUNCTION FLUSH}, config reset to its startup values,
+ * {@code CONFIG RESETSTAT}) and put back into the pool. A server which can not be cleaned, for example
+ * because a test shut it down, is replaced by a new one.
+ */
+public class RedisServerPool implements Redis {
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final RedisServerBuilder serverBuilder;
+    private final PortProvider portProvider;
+    private final int size;
+    private final long leaseTimeoutMillis;
+
+    private final List<PooledServer> servers = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<PooledServer> idle = new LinkedBlockingQueue<>();
+    private ExecutorService cleaner;
+    private volatile boolean active = false;
+
+    RedisServerPool(RedisServerBuilder serverBuilder, PortProvider portProvider, int size, long leaseTimeoutMillis) {
+        this.serverBuilder = serverBuilder;
+        this.portProvider = portProvider;
+        this.size = size;
+        this.leaseTimeoutMillis = leaseTimeoutMillis;
+    }
+
+    public static RedisServerPoolBuilder builder() {
+        return new RedisServerPoolBuilder();
+    }
+
+    @Override
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Starts all servers of the pool concurrently.
+     */
+    @Override
+    public synchronized void start() throws EmbeddedRedisException {
+        if (active) {
+            throw new EmbeddedRedisException("This redis server pool is already running...");
+        }
+        List<PooledServer> created = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            created.add(new PooledServer(buildServer()));
+        }
+        try {
+            ParallelUtil.forEach("start", created, PooledServer::warmUp, 0);
+        } catch (EmbeddedRedisException e) {
+            created.forEach(PooledServer::shutdown);
+            throw e;
+        }
+        servers.addAll(created);
+        idle.addAll(created);
+        cleaner = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "embedded-redis-pool-cleaner-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        active = true;
+    }
+
+    /**
+     * Stops every server of the pool, leased or not.
+     */
+    @Override
+    public synchronized void stop() throws EmbeddedRedisException {
+        if (!active) {
+            return;
+        }
+        active = false;
+        // in-flight cleanups are short, interrupting them would only fail the servers they stop
+        cleaner.shutdown();
+        try {
+            cleaner.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<PooledServer> all = new ArrayList<>(servers);
+        servers.clear();
+        idle.clear();
+        ParallelUtil.forEach("stop", all, PooledServer::shutdown, 0);
+    }
+
+    /**
+     * Leases a clean server, waiting up to the configured lease timeout for one to be returned.
+     */
+    public Lease lease() throws EmbeddedRedisException {
+        return lease(leaseTimeoutMillis);
+    }
+
+    public Lease lease(long timeoutMillis) throws EmbeddedRedisException {
+        if (!active) {
+            throw new EmbeddedRedisException("This redis server pool is not running");
+        }
+        try {
+            PooledServer pooled = idle.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+            if (pooled == null) {
+                throw new EmbeddedRedisException("No redis server returned to the pool within " + timeoutMillis + "ms");
+            }
+            return new Lease(pooled);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddedRedisException("Interrupted while waiting for a redis server", e);
+        }
+    }
+
+    @Override
+    public List<Integer> ports() {
+        List<Integer> ports = new ArrayList<>();
+        for (PooledServer pooled : servers) {
+            ports.addAll(pooled.server.ports());
+        }
+        return ports;
+    }
+
+    @Override
+    public List<Integer> tlsPorts() {
+        List<Integer> ports = new ArrayList<>();
+        for (PooledServer pooled : servers) {
+            ports.addAll(pooled.server.tlsPorts());
+        }
+        return ports;
+    }
+
+    @Override
+    public List<String> unixSockets() {
+        List<String> sockets = new ArrayList<>();
+        for (PooledServer pooled : servers) {
+            sockets.addAll(pooled.server.unixSockets());
+        }
+        return sockets;
+    }
+
+    /**
+     * A server taken from the pool, closing the lease returns the server.
+     */
+    public class Lease implements AutoCloseable {
+        private final PooledServer pooled;
+        private final AtomicBoolean returned = new AtomicBoolean(false);
+
+        private Lease(PooledServer pooled) {
+            this.pooled = pooled;
+        }
+
+        public RedisServer server() {
+            return pooled.server;
+        }
+
+        public int port() {
+            return pooled.server.ports().get(0);
+        }
+
+        @Override
+        public void close() {
+            if (returned.compareAndSet(false, true)) {
+                release(pooled);
+            }
+        }
+    }
+
+    // --------------------------------------------------------------------private methods
+
+    private RedisServer buildServer() {
+        synchronized (serverBuilder) {
+            RedisServer server = serverBuilder.port(portProvider.next()).build();
+            RedisClusterBuilder.retryOnPortConflict(server, portProvider);
+            return server;
+        }
+    }
+
+    private void release(PooledServer pooled) {
+        try {
+            if (active) {
+                cleaner.execute(() -> recycle(pooled));
+            }
+        } catch (RejectedExecutionException e) {
+            // the pool is stopping, which stops the server as well
+        }
+    }
+
+    private void recycle(PooledServer pooled) {
+        try {
+            pooled.clean();
+            idle.offer(pooled);
+            return;
+        } catch (IOException | RuntimeException e) {
+            pooled.shutdown();
+        }
+
+        PooledServer replacement = null;
+        try {
+            replacement = new PooledServer(buildServer());
+            replacement.warmUp();
+        } catch (RuntimeException e) {
+            // the pool shrinks, leases wait for the remaining servers
+            if (replacement != null) {
+                replacement.shutdown();
+            }
+            servers.remove(pooled);
+            return;
+        }
+        int index = servers.indexOf(pooled);
+        if (!active || index < 0) {
+            replacement.shutdown();
+            return;
+        }
+        servers.set(index, replacement);
+        idle.offer(replacement);
+    }
+
+    private static class PooledServer {
+        private final RedisServer server;
+        private RespClient admin;
+        private Map<String, String> initialConfig;
+
+        private PooledServer(RedisServer server) {
+            this.server = server;
+        }
+
+        private void warmUp() {
+            server.start();
+            try {
+                admin = RespClient.connect(server.host(), server.ports().get(0));
+                initialConfig = config(admin);
+            } catch (IOException e) {
+                throw new EmbeddedRedisException("Could not connect to " + server, e);
+            }
+        }
+
+        /**
+         * Sends all cleanup commands in one round trip, a second one is only needed for changed parameters.
+         */
+        private void clean() throws IOException {
+            if (!admin.isOpen()) {
+                throw new IOException("Lost the connection to " + server);
+            }
+            List<Object> replies = admin.pipeline(Arrays.asList(
+                // the admin connection itself is skipped
+                new String[]{"CLIENT", "KILL", "TYPE", "normal"},
+                new String[]{"CLIENT", "KILL", "TYPE", "pubsub"},
+                new String[]{"FLUSHALL", "ASYNC"},
+                new String[]{"SCRIPT", "FLUSH"},
+                new String[]{"FUNCTION", "FLUSH"},
+                new String[]{"CONFIG", "RESETSTAT"},
+                new String[]{"CONFIG", "GET", "*"}
+            ));
+            // FUNCTION FLUSH fails on servers before 7.0
+            for (int i = 0; i < 4; i++) {
+                if (replies.get(i) instanceof RedisCommandException) {
+                    throw (RedisCommandException) replies.get(i);
+                }
+            }
+            resetConfig(toConfig(replies.get(6)));
+        }
+
+        private void resetConfig(Map<String, String> config) throws IOException {
+            List<String[]> changes = new ArrayList<>();
+            for (Map.Entry<String, String> entry : config.entrySet()) {
+                String initial = initialConfig.get(entry.getKey());
+                if (initial != null && !initial.equals(entry.getValue())) {
+                    changes.add(new String[]{"CONFIG", "SET", entry.getKey(), initial});
+                }
+            }
+            if (!changes.isEmpty()) {
+                // an immutable or alias parameter fails, but can not have been changed at runtime anyway
+                admin.pipeline(changes);
+            }
+        }
+
+        private void shutdown() {
+            AbstractRedisInstance.closeQuietly(admin);
+            server.stop();
+        }
+
+        private static Map<String, String> config(RespClient connection) throws IOException {
+            return toConfig(connection.execute("CONFIG", "GET", "*"));
+        }
+
+        private static Map<String, String> toConfig(Object configGetReply) {
+            if (configGetReply instanceof RedisCommandException) {
+                throw (RedisCommandException) configGetReply;
+            }
+            List<?> reply = (List<?>) configGetReply;
+            Map<String, String> config = new HashMap<>(reply.size());
+            for (int i = 0; i + 1 < reply.size(); i += 2) {
+                config.put((String) reply.get(i), (String) reply.get(i + 1));
+            }
+            return config;
+        }
+
+        @Override
+        public String toString() {
+            return server.toString();
+        }
+    }
+}
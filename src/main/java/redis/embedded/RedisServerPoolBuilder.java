@@ -0,0 +1,68 @@
+package redis.embedded;
+
+import redis.embedded.exceptions.RedisBuildingException;
+import redis.embedded.ports.EphemeralPortProvider;
+import redis.embedded.ports.PredefinedPortProvider;
+
+import java.util.Collection;
+
+public class RedisServerPoolBuilder {
+
+    private RedisServerBuilder serverBuilder = RedisServer.builder();
+    private PortProvider portProvider = new EphemeralPortProvider();
+    private int size = 2;
+    private long leaseTimeoutMillis = 30000L;
+
+    RedisServerPoolBuilder() {
+    }
+
+    /**
+     * The template of the pooled servers, its port is replaced by a port of the pool's provider.
+     */
+    public RedisServerPoolBuilder withRedisServerBuilder(RedisServerBuilder serverBuilder) {
+        this.serverBuilder = serverBuilder;
+        return this;
+    }
+
+    /**
+     * How many servers are kept warm.
+     */
+    public RedisServerPoolBuilder size(int size) {
+        this.size = size;
+        return this;
+    }
+
+    /**
+     * Uses these ports, a server replaced after a failed cleanup takes one more port.
+     */
+    public RedisServerPoolBuilder ports(Collection<Integer> ports) {
+        this.portProvider = new PredefinedPortProvider(ports);
+        return this;
+    }
+
+    public RedisServerPoolBuilder portProvider(PortProvider portProvider) {
+        this.portProvider = portProvider;
+        return this;
+    }
+
+    public RedisServerPoolBuilder ephemeral() {
+        this.portProvider = new EphemeralPortProvider();
+        return this;
+    }
+
+    /**
+     * How long {@code lease()} waits for a server to be returned, when all are leased.
+     */
+    public RedisServerPoolBuilder leaseTimeoutMillis(long leaseTimeoutMillis) {
+        this.leaseTimeoutMillis = leaseTimeoutMillis;
+        return this;
+    }
+
+    public RedisServerPool build() {
+        if (size < 1) {
+            throw new RedisBuildingException("Pool size must be positive, but was " + size);
+        }
+        return new RedisServerPool(serverBuilder, portProvider, size, leaseTimeoutMillis);
+    }
+
+}
@@ -0,0 +1,267 @@
+package redis.embedded;
+
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.exceptions.RedisCommandException;
+import redis.embedded.resp.RespClient;
+import redis.embedded.util.ParallelUtil;
+import redis.embedded.util.SlotUtil;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+/**
+ * A native Redis Cluster ({@code cluster-enabled yes}): masters sharing the 16384 hash slots evenly,
+ * each with the same number of replicas.
+ *
+ * <p>{@link #start()} starts every node concurrently, introduces them to each other with {@code CLUSTER MEET},
+ * assigns the slots, attaches the replicas and returns once every node reports {@code cluster_state:ok}.
+ */
+public class RedisShardedCluster implements Redis {
+    public static final int SLOT_COUNT = SlotUtil.SLOT_COUNT;
+
+    private static final long MIN_POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long MAX_POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final List<RedisServer> masters = new ArrayList<>();
+    private final Map<RedisServer, RedisServer> replicas = new LinkedHashMap<>();
+    private final List<RedisServer> nodes = new ArrayList<>();
+    private final long formationTimeoutMillis;
+
+    RedisShardedCluster(List<RedisServer> masters, Map<RedisServer, RedisServer> replicas, long formationTimeoutMillis) {
+        this.masters.addAll(masters);
+        this.replicas.putAll(replicas);
+        this.nodes.addAll(masters);
+        this.nodes.addAll(replicas.keySet());
+        this.formationTimeoutMillis = formationTimeoutMillis;
+    }
+
+    public static RedisShardedClusterBuilder builder() {
+        return new RedisShardedClusterBuilder();
+    }
+
+    @Override
+    public boolean isActive() {
+        for (Redis redis : nodes) {
+            if (!redis.isActive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void start() throws EmbeddedRedisException {
+        try {
+            ParallelUtil.forEach("start", nodes, Redis::start, 0);
+            form();
+        } catch (EmbeddedRedisException e) {
+            try {
+                stop();
+            } catch (EmbeddedRedisException stopFailure) {
+                e.addSuppressed(stopFailure);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void stop() throws EmbeddedRedisException {
+        ParallelUtil.forEach("stop", nodes, Redis::stop, 0);
+    }
+
+    @Override
+    public List<Integer> ports() {
+        List<Integer> ports = new ArrayList<>();
+        for (Redis redis : nodes) {
+            ports.addAll(redis.ports());
+        }
+        return ports;
+    }
+
+    @Override
+    public List<Integer> tlsPorts() {
+        List<Integer> ports = new ArrayList<>();
+        for (Redis redis : nodes) {
+            ports.addAll(redis.tlsPorts());
+        }
+        return ports;
+    }
+
+    @Override
+    public List<String> unixSockets() {
+        List<String> sockets = new ArrayList<>();
+        for (Redis redis : nodes) {
+            sockets.addAll(redis.unixSockets());
+        }
+        return sockets;
+    }
+
+    public List<Redis> masters() {
+        return new ArrayList<>(masters);
+    }
+
+    public List<Redis> replicas() {
+        return new ArrayList<>(replicas.keySet());
+    }
+
+    /**
+     * The master which serves the slot, see {@link SlotUtil#slot(String)}.
+     */
+    public Redis masterOfSlot(int slot) {
+        for (int i = masters.size() - 1; i >= 0; i--) {
+            if (slot >= firstSlot(i, masters.size())) {
+                return masters.get(i);
+            }
+        }
+        throw new IllegalArgumentException("Invalid slot " + slot);
+    }
+
+    public List<Integer> masterPorts() {
+        List<Integer> ports = new ArrayList<>();
+        for (Redis redis : masters) {
+            ports.addAll(redis.ports());
+        }
+        return ports;
+    }
+
+    /**
+     * The first slot of the range assigned to the master at the index, the range ends before the next master's first slot.
+     */
+    static int firstSlot(int masterIndex, int masterCount) {
+        return (int) ((long) SLOT_COUNT * masterIndex / masterCount);
+    }
+
+    // --------------------------------------------------------------------private methods
+
+    private void form() {
+        final Map<RedisServer, RespClient> connections = new LinkedHashMap<>();
+        try {
+            for (RedisServer node : nodes) {
+                connections.put(node, connect(node));
+            }
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(formationTimeoutMillis);
+
+            // distinct config epochs avoid the epoch collision resolution after the slots are assigned
+            ParallelUtil.forEach("set the config epoch of", nodes, node ->
+                execute(connections.get(node), "CLUSTER", "SET-CONFIG-EPOCH", Integer.toString(nodes.indexOf(node) + 1)), 0);
+
+            final RedisServer first = nodes.get(0);
+            final String firstAddress = address(first);
+            final String firstPort = Integer.toString(first.ports().get(0));
+            ParallelUtil.forEach("introduce", nodes.subList(1, nodes.size()), node ->
+                execute(connections.get(node), "CLUSTER", "MEET", firstAddress, firstPort), 0);
+
+            ParallelUtil.forEach("assign slots to", masters, master -> {
+                int index = masters.indexOf(master);
+                addSlots(connections.get(master), firstSlot(index, masters.size()), firstSlot(index + 1, masters.size()) - 1);
+            }, 0);
+
+            awaitAll("know all nodes", connections, deadline, connection -> {
+                String clusterNodes = execute(connection, "CLUSTER", "NODES");
+                return !clusterNodes.contains("handshake") && countLines(clusterNodes) == nodes.size();
+            });
+
+            final Map<RedisServer, String> masterIds = new HashMap<>();
+            for (RedisServer master : masters) {
+                masterIds.put(master, nodeId(connections.get(master)));
+            }
+            ParallelUtil.forEach("attach", replicas.keySet(), replica -> execute(connections.get(replica),
+                "CLUSTER", "REPLICATE", masterIds.get(replicas.get(replica))), 0);
+
+            awaitAll("report cluster_state:ok", connections, deadline,
+                connection -> execute(connection, "CLUSTER", "INFO").contains("cluster_state:ok"));
+        } finally {
+            connections.values().forEach(AbstractRedisInstance::closeQuietly);
+        }
+    }
+
+    private static RespClient connect(RedisServer node) {
+        try {
+            return RespClient.connect(node.host(), node.ports().get(0));
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Could not connect to " + node, e);
+        }
+    }
+
+    /**
+     * {@code CLUSTER ADDSLOTSRANGE} exists since redis 7.0, older servers get the slots one by one.
+     */
+    private static void addSlots(RespClient connection, int from, int to) {
+        try {
+            execute(connection, "CLUSTER", "ADDSLOTSRANGE", Integer.toString(from), Integer.toString(to));
+        } catch (RedisCommandException e) {
+            String[] args = new String[to - from + 3];
+            args[0] = "CLUSTER";
+            args[1] = "ADDSLOTS";
+            for (int slot = from; slot <= to; slot++) {
+                args[slot - from + 2] = Integer.toString(slot);
+            }
+            execute(connection, args);
+        }
+    }
+
+    /**
+     * {@code CLUSTER MYID} exists since redis 7.0, the own line of {@code CLUSTER NODES} works everywhere.
+     */
+    private static String nodeId(RespClient connection) {
+        for (String line : execute(connection, "CLUSTER", "NODES").split("\n")) {
+            if (line.contains("myself")) {
+                return line.substring(0, line.indexOf(' '));
+            }
+        }
+        throw new EmbeddedRedisException("Could not find the own node id in CLUSTER NODES");
+    }
+
+    private void awaitAll(String condition, Map<RedisServer, RespClient> connections, long deadline,
+                          Predicate<RespClient> check) {
+        List<RedisServer> pending = new ArrayList<>(connections.keySet());
+        long interval = MIN_POLL_INTERVAL_NANOS;
+        while (true) {
+            pending.removeIf(node -> check.test(connections.get(node)));
+            if (pending.isEmpty()) {
+                return;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw new EmbeddedRedisException("Cluster nodes " + pending + " did not " + condition
+                    + " within " + formationTimeoutMillis + "ms");
+            }
+            LockSupport.parkNanos(interval);
+            interval = Math.min(interval << 1, MAX_POLL_INTERVAL_NANOS);
+        }
+    }
+
+    private static String execute(RespClient connection, String... args) {
+        try {
+            Object reply = connection.execute(args);
+            return reply != null ? reply.toString() : null;
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Failed to send " + String.join(" ", args), e);
+        }
+    }
+
+    private static int countLines(String text) {
+        int count = 0;
+        for (String line : text.split("\n")) {
+            if (!line.trim().isEmpty()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * {@code CLUSTER MEET} takes an IP address, not a host name.
+     */
+    private static String address(RedisServer node) {
+        try {
+            return InetAddress.getByName(node.host()).getHostAddress();
+        } catch (UnknownHostException e) {
+            throw new EmbeddedRedisException("Could not resolve " + node.host(), e);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package redis.embedded;
+
+import redis.embedded.exceptions.RedisBuildingException;
+import redis.embedded.ports.DisjointPortProvider;
+import redis.embedded.ports.EphemeralPortProvider;
+import redis.embedded.ports.PredefinedPortProvider;
+import redis.embedded.ports.SequencePortProvider;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RedisShardedClusterBuilder {
+
+    private RedisServerBuilder serverBuilder = RedisServer.builder();
+    private PortProvider portProvider = new SequencePortProvider(7000);
+    private int masterCount = 3;
+    private int replicasPerMaster = 0;
+    private long nodeTimeoutMillis = 5000L;
+    private long formationTimeoutMillis = 30000L;
+
+    RedisShardedClusterBuilder() {
+    }
+
+    /**
+     * The template of the nodes, the cluster settings and the port are added to it for each node.
+     */
+    public RedisShardedClusterBuilder withRedisServerBuilder(RedisServerBuilder serverBuilder) {
+        this.serverBuilder = serverBuilder;
+        return this;
+    }
+
+    public RedisShardedClusterBuilder masters(int masterCount) {
+        this.masterCount = masterCount;
+        return this;
+    }
+
+    public RedisShardedClusterBuilder replicasPerMaster(int replicasPerMaster) {
+        this.replicasPerMaster = replicasPerMaster;
+        return this;
+    }
+
+    /**
+     * The ports of the masters first, then of the replicas of the first master, of the second master and so on.
+     */
+    public RedisShardedClusterBuilder serverPorts(Collection<Integer> ports) {
+        this.portProvider = new PredefinedPortProvider(ports);
+        return this;
+    }
+
+    public RedisShardedClusterBuilder serverStartingPort(int startingPort) {
+        this.portProvider = new SequencePortProvider(startingPort);
+        return this;
+    }
+
+    public RedisShardedClusterBuilder ephemeral() {
+        this.portProvider = new EphemeralPortProvider();
+        return this;
+    }
+
+    /**
+     * Takes the ports from the blocks of ports reserved for this JVM, their cluster bus ports included, see
+     * {@link DisjointPortProvider#sharedForClusterNodes()}.
+     */
+    public RedisShardedClusterBuilder disjointPorts() {
+        this.portProvider = DisjointPortProvider.sharedForClusterNodes();
+        return this;
+    }
+
+    /**
+     * The {@code cluster-node-timeout} of every node.
+     */
+    public RedisShardedClusterBuilder nodeTimeoutMillis(long nodeTimeoutMillis) {
+        this.nodeTimeoutMillis = nodeTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * How long {@code start()} waits for the nodes to agree on the cluster, after all of them started.
+     */
+    public RedisShardedClusterBuilder formationTimeoutMillis(long formationTimeoutMillis) {
+        this.formationTimeoutMillis = formationTimeoutMillis;
+        return this;
+    }
+
+    public RedisShardedCluster build() {
+        if (masterCount < 1 || masterCount > RedisShardedCluster.SLOT_COUNT) {
+            throw new RedisBuildingException("Invalid number of masters " + masterCount);
+        }
+        final List<String> templateSettings = serverBuilder.settings();
+        final List<RedisServer> masters = new ArrayList<>();
+        final Map<RedisServer, RedisServer> replicas = new LinkedHashMap<>();
+        try {
+            for (int i = 0; i < masterCount; i++) {
+                masters.add(buildNode(templateSettings));
+            }
+            for (RedisServer master : masters) {
+                for (int i = 0; i < replicasPerMaster; i++) {
+                    replicas.put(buildNode(templateSettings), master);
+                }
+            }
+        } finally {
+            serverBuilder.reset();
+            templateSettings.forEach(serverBuilder::setting);
+        }
+        return new RedisShardedCluster(masters, replicas, formationTimeoutMillis);
+    }
+
+    // --------------------------------------------------------------------private methods
+
+    /**
+     * Every node keeps its {@code nodes.conf} and its dump in its own working directory, so no node picks up
+     * the state of another one. The settings of the template come first, the cluster settings override them.
+     */
+    private RedisServer buildNode(List<String> templateSettings) {
+        final int port = portProvider.next();
+        serverBuilder.reset();
+        templateSettings.forEach(serverBuilder::setting);
+        serverBuilder.port(port)
+            .setting("cluster-enabled yes")
+            .setting("cluster-node-timeout " + nodeTimeoutMillis);
+        final RedisServer node = serverBuilder.build();
+        RedisClusterBuilder.retryOnPortConflict(node, portProvider);
+        return node;
+    }
+
+}
@@ -0,0 +1,126 @@
+package redis.embedded;
+
+import redis.embedded.exceptions.RedisBuildingException;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A {@code major.minor.patch} redis version, as printed by {@code redis-server --version}.
+ */
+final class RedisVersion implements Comparable<RedisVersion> {
+    private static final Pattern VERSION = Pattern.compile("v=(\\d+)\\.(\\d+)\\.(\\d+)");
+    private static final Pattern PLAIN_VERSION = Pattern.compile("(\\d+)\\.(\\d+)\\.(\\d+)");
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private static final Map<String, RedisVersion> DETECTED = new ConcurrentHashMap<>();
+
+    private final int major;
+    private final int minor;
+    private final int patch;
+
+    RedisVersion(int major, int minor, int patch) {
+        this.major = major;
+        this.minor = minor;
+        this.patch = patch;
+    }
+
+    static RedisVersion parse(String version) {
+        Matcher matcher = PLAIN_VERSION.matcher(version);
+        if (!matcher.find()) {
+            throw new IllegalArgumentException("Invalid redis version " + version);
+        }
+        return of(matcher);
+    }
+
+    /**
+     * Runs {@code <executable> --version} once per executable, and parses its output.
+     */
+    static RedisVersion detect(File executable) {
+        return DETECTED.computeIfAbsent(executable.getAbsolutePath(), path -> {
+            String output = versionOutput(path);
+            Matcher matcher = VERSION.matcher(output);
+            if (!matcher.find()) {
+                throw new RedisBuildingException("Could not detect the version of " + path + " from: " + output);
+            }
+            return of(matcher);
+        });
+    }
+
+    int major() {
+        return major;
+    }
+
+    int minor() {
+        return minor;
+    }
+
+    int patch() {
+        return patch;
+    }
+
+    @Override
+    public int compareTo(RedisVersion other) {
+        if (major != other.major) {
+            return Integer.compare(major, other.major);
+        }
+        if (minor != other.minor) {
+            return Integer.compare(minor, other.minor);
+        }
+        return Integer.compare(patch, other.patch);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof RedisVersion)) {
+            return false;
+        }
+        return compareTo((RedisVersion) o) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return (major * 31 + minor) * 31 + patch;
+    }
+
+    @Override
+    public String toString() {
+        return major + "." + minor + "." + patch;
+    }
+
+    // --------------------------------------------------------------------private methods
+
+    private static RedisVersion of(Matcher matcher) {
+        return new RedisVersion(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)), Integer.parseInt(matcher.group(3)));
+    }
+
+    private static String versionOutput(String executable) {
+        try {
+            Process process = new ProcessBuilder(executable, "--version").redirectErrorStream(true).start();
+            StringBuilder output = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    output.append(line);
+                }
+            }
+            if (!process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+            return output.toString();
+        } catch (IOException e) {
+            throw new RedisBuildingException("Could not run " + executable + " --version", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisBuildingException("Interrupted while running " + executable + " --version", e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package redis.embedded;
+
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.util.ParallelUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The registry of running instances, with one JVM shutdown hook which stops all of them concurrently.
+ *
+ * <p>An instance registers when its process is spawned and deregisters when it is stopped, so restarting
+ * instances does not accumulate hooks. The hook waits at most {@code embedded-redis.shutdown-timeout-millis}
+ * (default 10 seconds) in total.
+ */
+class ShutdownCoordinator {
+    static final String TIMEOUT_PROPERTY = "embedded-redis.shutdown-timeout-millis";
+
+    private static final long DEFAULT_TIMEOUT_MILLIS = 10000L;
+    private static final ShutdownCoordinator SHARED = new ShutdownCoordinator();
+
+    private final Set<Redis> live = ConcurrentHashMap.newKeySet();
+    private volatile boolean hookInstalled = false;
+
+    static ShutdownCoordinator shared() {
+        return SHARED;
+    }
+
+    void register(Redis redis) {
+        installHook();
+        live.add(redis);
+    }
+
+    void deregister(Redis redis) {
+        live.remove(redis);
+    }
+
+    List<Redis> live() {
+        return new ArrayList<>(live);
+    }
+
+    boolean isHookInstalled() {
+        return hookInstalled;
+    }
+
+    /**
+     * Stops every registered instance concurrently, within the total timeout.
+     */
+    void stopAll(long timeoutMillis) {
+        try {
+            ParallelUtil.forEach("stop", live(), Redis::stop, timeoutMillis);
+        } catch (EmbeddedRedisException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // --------------------------------------------------------------------private methods
+
+    private void installHook() {
+        if (hookInstalled) {
+            return;
+        }
+        synchronized (this) {
+            if (!hookInstalled) {
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> stopAll(timeoutMillis()), "RedisInstanceCleaner"));
+                hookInstalled = true;
+            }
+        }
+    }
+
+    private static long timeoutMillis() {
+        try {
+            return Long.parseLong(System.getProperty(TIMEOUT_PROPERTY, Long.toString(DEFAULT_TIMEOUT_MILLIS)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_TIMEOUT_MILLIS;
+        }
+    }
+}
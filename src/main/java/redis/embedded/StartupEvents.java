@@ -0,0 +1,54 @@
+package redis.embedded;
+
+/**
+ * Emits {@link StartupPhaseEvent}s on JVMs with Flight Recorder (JDK 11+, 8u262+) and does nothing on the others:
+ * the event class, which needs {@code jdk.jfr}, is only loaded once the module is known to be there. Events are
+ * passed around as {@code Object} for the same reason.
+ */
+final class StartupEvents {
+    private static final boolean AVAILABLE = isFlightRecorderAvailable();
+
+    private StartupEvents() {
+    }
+
+    /**
+     * A started event, {@code null} without Flight Recorder.
+     */
+    static Object begin() {
+        if (!AVAILABLE) {
+            return null;
+        }
+        StartupPhaseEvent event = new StartupPhaseEvent();
+        event.begin();
+        return event;
+    }
+
+    static void end(Object event) {
+        if (event != null) {
+            ((StartupPhaseEvent) event).end();
+        }
+    }
+
+    static void commit(Object event, StartupReport.Phase phase, String instance, String role, int port) {
+        if (event == null) {
+            return;
+        }
+        StartupPhaseEvent phaseEvent = (StartupPhaseEvent) event;
+        if (phaseEvent.shouldCommit()) {
+            phaseEvent.phase = phase.name();
+            phaseEvent.instance = instance;
+            phaseEvent.role = role;
+            phaseEvent.port = port;
+            phaseEvent.commit();
+        }
+    }
+
+    private static boolean isFlightRecorderAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, StartupEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package redis.embedded;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One {@link StartupReport.Phase} of an instance or cluster, only ever loaded through {@link StartupEvents}.
+ */
+@Name(StartupPhaseEvent.NAME)
+@Label("Redis Startup Phase")
+@Category("Embedded Redis")
+@Description("A phase of building or starting a Redis instance or cluster")
+@StackTrace(false)
+final class StartupPhaseEvent extends Event {
+    static final String NAME = "redis.embedded.StartupPhase";
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Instance")
+    String instance;
+
+    @Label("Role")
+    String role;
+
+    @Label("Port")
+    int port;
+}
@@ -0,0 +1,202 @@
+package redis.embedded;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where the time of a {@code start()} went: how long each phase took, from the build of the instance to the moment
+ * it accepted commands, or for a {@link RedisCluster} until its replication and sentinels were up. Every phase is
+ * also emitted as a {@code redis.embedded.StartupPhase} JDK Flight Recorder event, when the JVM has Flight Recorder.
+ */
+public class StartupReport {
+
+    public enum Phase {
+        /**
+         * Resolving the executable, extracted from the jar on first use.
+         */
+        EXTRACT,
+        /**
+         * Validating the profile and writing the config file.
+         */
+        CONFIGURE,
+        /**
+         * Creating the process.
+         */
+        SPAWN,
+        /**
+         * Waiting for the process to accept commands.
+         */
+        READY,
+        /**
+         * Starting the masters of a cluster.
+         */
+        MASTERS,
+        /**
+         * Starting the slaves of a cluster.
+         */
+        SLAVES,
+        /**
+         * Waiting for the slaves to finish their initial sync.
+         */
+        REPLICATION,
+        /**
+         * Starting the sentinels of a cluster.
+         */
+        SENTINELS,
+        /**
+         * Waiting for the sentinels to discover each other and the slaves.
+         */
+        SENTINEL_CONVERGENCE
+    }
+
+    /**
+     * A phase, which may fail.
+     */
+    interface Step<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    private final Map<Phase, Long> nanos = new EnumMap<>(Phase.class);
+    private final List<Object[]> pendingEvents = new ArrayList<>();
+    private List<StartupReport> instances = Collections.emptyList();
+    private String instance;
+    private String role;
+    private int port;
+
+    StartupReport() {
+    }
+
+    StartupReport(String instance, String role, int port) {
+        identify(instance, role, port);
+    }
+
+    /**
+     * Names the instance the phases belong to, and emits the events of the phases timed before it was known.
+     */
+    synchronized void identify(String instance, String role, int port) {
+        this.instance = instance;
+        this.role = role;
+        this.port = port;
+        for (Object[] pending : pendingEvents) {
+            StartupEvents.commit(pending[1], (Phase) pending[0], instance, role, port);
+        }
+        pendingEvents.clear();
+    }
+
+    /**
+     * Runs the phase and records its duration, added to the previous runs of the phase (for example when the
+     * start is retried on another port).
+     */
+    <T, E extends Exception> T time(Phase phase, Step<T, E> step) throws E {
+        final Object event = StartupEvents.begin();
+        final long begin = System.nanoTime();
+        try {
+            return step.run();
+        } finally {
+            long elapsed = System.nanoTime() - begin;
+            StartupEvents.end(event);
+            record(phase, elapsed, event);
+        }
+    }
+
+    /**
+     * Copies the phases of the build, which happened once for all starts.
+     */
+    synchronized void addAll(StartupReport other) {
+        if (other != null) {
+            for (Map.Entry<Phase, Long> entry : other.phaseNanos().entrySet()) {
+                nanos.merge(entry.getKey(), entry.getValue(), Long::sum);
+            }
+        }
+    }
+
+    synchronized void instances(List<StartupReport> instances) {
+        this.instances = Collections.unmodifiableList(new ArrayList<>(instances));
+    }
+
+    /**
+     * The phases which ran, with their duration in nanoseconds, in order.
+     */
+    public synchronized Map<Phase, Long> phaseNanos() {
+        return Collections.unmodifiableMap(new EnumMap<>(nanos));
+    }
+
+    /**
+     * The duration of the phase in nanoseconds, {@code 0} if it did not run.
+     */
+    public synchronized long nanos(Phase phase) {
+        return nanos.getOrDefault(phase, 0L);
+    }
+
+    public synchronized long totalNanos() {
+        long total = 0;
+        for (long n : nanos.values()) {
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * The phase which took the longest, {@code null} if none ran.
+     */
+    public synchronized Phase slowestPhase() {
+        Phase slowest = null;
+        for (Map.Entry<Phase, Long> entry : nanos.entrySet()) {
+            if (slowest == null || entry.getValue() > nanos.get(slowest)) {
+                slowest = entry.getKey();
+            }
+        }
+        return slowest;
+    }
+
+    /**
+     * The reports of the instances of a cluster, empty for a single instance.
+     */
+    public synchronized List<StartupReport> instances() {
+        return instances;
+    }
+
+    public synchronized String instance() {
+        return instance;
+    }
+
+    /**
+     * {@code master}, {@code slave}, {@code sentinel} or {@code cluster}.
+     */
+    public synchronized String role() {
+        return role;
+    }
+
+    /**
+     * The TCP port of the instance, {@code 0} for a cluster or an instance without TCP port.
+     */
+    public synchronized int port() {
+        return port;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder(String.valueOf(instance)).append(" (").append(role).append(") started in ")
+            .append(TimeUnit.NANOSECONDS.toMillis(totalNanos())).append("ms:");
+        for (Map.Entry<Phase, Long> entry : nanos.entrySet()) {
+            builder.append(' ').append(entry.getKey()).append('=')
+                .append(TimeUnit.NANOSECONDS.toMicros(entry.getValue()) / 1000.0).append("ms");
+        }
+        return builder.toString();
+    }
+
+    // --------------------------------------------------------------------private methods
+
+    private synchronized void record(Phase phase, long elapsedNanos, Object event) {
+        nanos.merge(phase, elapsedNanos, Long::sum);
+        if (instance != null) {
+            StartupEvents.commit(event, phase, instance, role, port);
+        } else if (event != null) {
+            pendingEvents.add(new Object[]{phase, event});
+        }
+    }
+}
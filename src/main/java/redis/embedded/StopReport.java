@@ -0,0 +1,72 @@
+package redis.embedded;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where the time of a {@code stop()} went: how long each phase of the {@link StopStrategy} took,
+ * and which phase finally ended the process.
+ */
+public class StopReport {
+
+    public enum Phase {
+        SHUTDOWN_NOSAVE, SIGTERM, SIGKILL
+    }
+
+    private final String instance;
+    private final Map<Phase, Long> nanos = new EnumMap<>(Phase.class);
+    private Phase exitedIn;
+
+    StopReport(String instance) {
+        this.instance = instance;
+    }
+
+    void record(Phase phase, long elapsedNanos, boolean exited) {
+        nanos.put(phase, elapsedNanos);
+        if (exited && exitedIn == null) {
+            exitedIn = phase;
+        }
+    }
+
+    /**
+     * The phases which ran, with their duration in nanoseconds, in order.
+     */
+    public Map<Phase, Long> phaseNanos() {
+        return Collections.unmodifiableMap(nanos);
+    }
+
+    /**
+     * The phase after which the process had exited, {@code null} if it survived all of them
+     * or had exited before {@code stop()} (then no phase ran).
+     */
+    public Phase exitedIn() {
+        return exitedIn;
+    }
+
+    public long totalNanos() {
+        long total = 0;
+        for (long n : nanos.values()) {
+            total += n;
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        if (nanos.isEmpty()) {
+            return instance + " had already exited";
+        }
+        StringBuilder builder = new StringBuilder(instance).append(" stopped");
+        if (exitedIn == null) {
+            builder.append(" (still running)");
+        }
+        builder.append(" in ").append(TimeUnit.NANOSECONDS.toMillis(totalNanos())).append("ms:");
+        for (Map.Entry<Phase, Long> entry : nanos.entrySet()) {
+            builder.append(' ').append(entry.getKey()).append('=')
+                .append(TimeUnit.NANOSECONDS.toMicros(entry.getValue()) / 1000.0).append("ms");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,54 @@
+package redis.embedded;
+
+/**
+ * How an instance is stopped: {@code SHUTDOWN NOSAVE} over the protocol, then {@code SIGTERM}, then {@code SIGKILL},
+ * each phase waiting up to its deadline for the process to exit before escalating to the next one.
+ *
+ * <p>A phase with a deadline of zero is skipped, except the last one.
+ */
+public class StopStrategy {
+    public static final StopStrategy DEFAULT = new StopStrategy(5000L, 5000L, 5000L);
+
+    /**
+     * The previous behaviour: {@code SIGTERM} without deadline, which lets a server with {@code save} configured
+     * write its dump before it exits.
+     */
+    public static final StopStrategy TERMINATE = new StopStrategy(0L, Long.MAX_VALUE, 5000L);
+
+    /**
+     * {@code SIGKILL} right away, for example to simulate a crashed master.
+     */
+    public static final StopStrategy KILL = new StopStrategy(0L, 0L, 5000L);
+
+    private final long shutdownMillis;
+    private final long terminateMillis;
+    private final long killMillis;
+
+    /**
+     * @param shutdownMillis  how long to wait for the exit after {@code SHUTDOWN NOSAVE}
+     * @param terminateMillis how long to wait for the exit after {@code SIGTERM}
+     * @param killMillis      how long to wait for the exit after {@code SIGKILL}
+     */
+    public StopStrategy(long shutdownMillis, long terminateMillis, long killMillis) {
+        this.shutdownMillis = shutdownMillis;
+        this.terminateMillis = terminateMillis;
+        this.killMillis = killMillis;
+    }
+
+    public long shutdownMillis() {
+        return shutdownMillis;
+    }
+
+    public long terminateMillis() {
+        return terminateMillis;
+    }
+
+    public long killMillis() {
+        return killMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "StopStrategy[shutdown=" + shutdownMillis + "ms, terminate=" + terminateMillis + "ms, kill=" + killMillis + "ms]";
+    }
+}
@@ -0,0 +1,89 @@
+package redis.embedded;
+
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * The private working directory of an instance, where redis writes its dump, its AOF and its cluster config
+ * as long as {@code dir} is not set explicitly.
+ *
+ * <p>The directory is created on the first start and deleted with all its files on stop, unless it is kept.
+ * Restarts recreate the same path, as sentinels rewrite their config file with the absolute {@code dir}.
+ */
+class WorkingDirectory {
+    static final File TMPFS = new File("/dev/shm");
+
+    private static final String PREFIX = "embedded-redis-";
+
+    private final File parent;
+    private final boolean keep;
+    private volatile File current;
+
+    /**
+     * @param parent where the directory is created, {@code null} for {@code java.io.tmpdir}
+     */
+    WorkingDirectory(File parent, boolean keep) {
+        this.parent = parent;
+        this.keep = keep;
+    }
+
+    static WorkingDirectory temporary() {
+        return new WorkingDirectory(null, false);
+    }
+
+    /**
+     * {@code /dev/shm} where it exists, so persistence never reaches a disk; {@code null} (the temp dir) elsewhere.
+     */
+    static File tmpfsOrTemp() {
+        return TMPFS.isDirectory() && TMPFS.canWrite() ? TMPFS : null;
+    }
+
+    File prepare() {
+        File dir = current;
+        if (dir != null && (dir.isDirectory() || dir.mkdirs())) {
+            return dir;
+        }
+        try {
+            Path created = parent != null
+                ? Files.createTempDirectory(parent.toPath(), PREFIX)
+                : Files.createTempDirectory(PREFIX);
+            dir = created.toFile();
+            // only succeeds for an empty directory, the directory of a running instance is deleted on stop
+            dir.deleteOnExit();
+            current = dir;
+            return dir;
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Could not create a working directory in "
+                + (parent != null ? parent : System.getProperty("java.io.tmpdir")), e);
+        }
+    }
+
+    /**
+     * The directory, {@code null} if it was not created yet or was deleted.
+     */
+    File current() {
+        File dir = current;
+        return dir != null && dir.isDirectory() ? dir : null;
+    }
+
+    /**
+     * Deletes the directory and everything in it, unless it is kept for the next start.
+     */
+    void release() {
+        File dir = current;
+        if (keep || dir == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            // the directory is in a temp location anyway
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package redis.embedded.exceptions;
+
+/**
+ * An error reply of a redis instance, for example {@code ERR unknown command} or {@code LOADING ...}.
+ */
+public class RedisCommandException extends EmbeddedRedisException {
+    public RedisCommandException(String message) {
+        super(message);
+    }
+
+    /**
+     * The first word of the error, for example {@code ERR}, {@code LOADING} or {@code NOAUTH}.
+     */
+    public String errorCode() {
+        String message = getMessage();
+        int space = message.indexOf(' ');
+        return space < 0 ? message : message.substring(0, space);
+    }
+}
@@ -0,0 +1,83 @@
+package redis.embedded.load;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outcome of a {@link BulkLoader} run: how much was written how fast, and a summary of the error replies.
+ */
+public class BulkLoadReport {
+    private final long commands;
+    private final long keys;
+    private final long errors;
+    private final Map<String, Long> errorsByType;
+    private final List<String> errorSamples;
+    private final long elapsedNanos;
+
+    BulkLoadReport(long commands, long keys, long errors, Map<String, Long> errorsByType,
+                   List<String> errorSamples, long elapsedNanos) {
+        this.commands = commands;
+        this.keys = keys;
+        this.errors = errors;
+        this.errorsByType = Collections.unmodifiableMap(errorsByType);
+        this.errorSamples = Collections.unmodifiableList(errorSamples);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long commands() {
+        return commands;
+    }
+
+    /**
+     * The number of keys written, consecutive commands on the same key (for example {@code HSET} and
+     * {@code EXPIRE}) count as one key.
+     */
+    public long keys() {
+        return keys;
+    }
+
+    /**
+     * The number of error replies.
+     */
+    public long errors() {
+        return errors;
+    }
+
+    /**
+     * The number of error replies by their error code, for example {@code WRONGTYPE} or {@code ERR}.
+     */
+    public Map<String, Long> errorsByType() {
+        return errorsByType;
+    }
+
+    /**
+     * The first few error messages.
+     */
+    public List<String> errorSamples() {
+        return errorSamples;
+    }
+
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double commandsPerSecond() {
+        return perSecond(commands);
+    }
+
+    public double keysPerSecond() {
+        return perSecond(keys);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BulkLoadReport[%d commands, %d keys in %dms (%.0f keys/s), %d errors %s]",
+            commands, keys, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), keysPerSecond(), errors, errorsByType);
+    }
+
+    private double perSecond(long count) {
+        return elapsedNanos > 0 ? count * 1e9 / elapsedNanos : 0;
+    }
+}
@@ -0,0 +1,562 @@
+package redis.embedded.load;
+
+import redis.embedded.Redis;
+import redis.embedded.RedisCluster;
+import redis.embedded.RedisShardedCluster;
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.exceptions.RedisCommandException;
+import redis.embedded.resp.RespClient;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes large amounts of commands as fast as possible, the Java counterpart of {@code redis-cli --pipe}.
+ *
+ * <p>Commands are encoded into batches of {@link #pipelineDepth(int)} commands on the calling thread, and written by
+ * {@link #connections(int)} connections concurrently, each one sending its next batch before it reads the replies of
+ * the previous one. The key (the first argument) of each command decides where it goes: a
+ * {@link RedisShardedCluster} gets it on the master serving the slot of the key, a {@link RedisCluster} on the
+ * master of one of its replication groups (the slot of the key modulo the number of groups), anything else on
+ * its first port.
+ *
+ * <p>Error replies do not stop the load, they are counted and summarized in the {@link BulkLoadReport}.
+ */
+public class BulkLoader {
+    public static final int DEFAULT_PIPELINE_DEPTH = 1000;
+
+    private static final int MAX_ERROR_SAMPLES = 10;
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final Routing routing;
+    private final List<Redis> targets;
+    private int connections = Runtime.getRuntime().availableProcessors();
+    private int pipelineDepth = DEFAULT_PIPELINE_DEPTH;
+
+    private BulkLoader(Routing routing) {
+        this.routing = routing;
+        this.targets = routing.targets();
+    }
+
+    public static BulkLoader to(Redis redis) {
+        return new BulkLoader(Routing.of(redis));
+    }
+
+    /**
+     * The total number of connections, spread evenly over the masters (at least one each), by default one per core.
+     */
+    public BulkLoader connections(int connections) {
+        this.connections = connections;
+        return this;
+    }
+
+    /**
+     * How many commands are sent at once on a connection.
+     */
+    public BulkLoader pipelineDepth(int pipelineDepth) {
+        this.pipelineDepth = pipelineDepth;
+        return this;
+    }
+
+    public BulkLoadReport load(Iterator<String[]> commands) throws EmbeddedRedisException {
+        try (Session session = new Session()) {
+            while (commands.hasNext()) {
+                session.add(commands.next());
+            }
+            return session.finish();
+        }
+    }
+
+    public BulkLoadReport load(Iterable<String[]> commands) throws EmbeddedRedisException {
+        return load(commands.iterator());
+    }
+
+    /**
+     * Loads a text file with one command per line, arguments separated by spaces and optionally quoted as in
+     * {@code redis-cli}: {@code SET "a key" "a\nvalue"}. Empty lines and lines starting with {@code #} are skipped.
+     */
+    public BulkLoadReport load(File file) throws EmbeddedRedisException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+             Session session = new Session()) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+                if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                    session.add(splitArgs(trimmed));
+                }
+            }
+            return session.finish();
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Could not read " + file, e);
+        }
+    }
+
+    /**
+     * Loads commands already encoded in RESP (arrays of bulk strings), as produced for {@code redis-cli --pipe}.
+     */
+    public BulkLoadReport loadResp(InputStream resp) throws EmbeddedRedisException {
+        try (Session session = new Session()) {
+            RespCommandReader reader = new RespCommandReader(new BufferedInputStream(resp, 64 * 1024));
+            while (reader.next()) {
+                session.addRaw(reader);
+            }
+            return session.finish();
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Could not read the RESP input", e);
+        }
+    }
+
+    public BulkLoadReport loadResp(File file) throws EmbeddedRedisException {
+        try (InputStream in = new FileInputStream(file)) {
+            return loadResp(in);
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Could not read " + file, e);
+        }
+    }
+
+    /**
+     * Splits an inline command into its arguments, honouring double quotes (with backslash escapes) and single quotes.
+     */
+    static String[] splitArgs(String line) {
+        List<String> args = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int i = 0;
+        final int n = line.length();
+        while (i < n) {
+            while (i < n && Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            if (i == n) {
+                break;
+            }
+            current.setLength(0);
+            char quote = line.charAt(i) == '"' || line.charAt(i) == '\'' ? line.charAt(i++) : 0;
+            while (i < n) {
+                char c = line.charAt(i++);
+                if (quote == 0 && Character.isWhitespace(c)) {
+                    break;
+                }
+                if (quote != 0 && c == quote) {
+                    break;
+                }
+                if (quote == '"' && c == '\\' && i < n) {
+                    c = line.charAt(i++);
+                    switch (c) {
+                        case 'n': c = '\n'; break;
+                        case 'r': c = '\r'; break;
+                        case 't': c = '\t'; break;
+                        default: break;
+                    }
+                }
+                current.append(c);
+            }
+            args.add(current.toString());
+        }
+        return args.toArray(new String[0]);
+    }
+
+    // --------------------------------------------------------------------private methods
+
+    private static boolean rangeEquals(byte[] a, int offset, byte[] b, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[offset + i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * One load: the batches being filled, the queue and the connections of every target, and the counters.
+     */
+    private final class Session implements Closeable {
+        private final Batch[] filling = new Batch[targets.size()];
+        private final List<BlockingQueue<Batch>> queues = new ArrayList<>();
+        private final List<Future<?>> workers = new ArrayList<>();
+        private final ConcurrentLinkedQueue<Batch> free = new ConcurrentLinkedQueue<>();
+        private final ExecutorService executor;
+        private final long begin = System.nanoTime();
+        private final int perTarget = Math.max(1, connections / targets.size());
+
+        private final LongAdder errors = new LongAdder();
+        private final Map<String, LongAdder> errorsByType = new ConcurrentHashMap<>();
+        private final List<String> errorSamples = Collections.synchronizedList(new ArrayList<>());
+        private volatile Throwable failure;
+
+        private long commands = 0;
+        private long keys = 0;
+        private byte[] lastKey = new byte[0];
+        private int lastKeyLength = -1;
+        private boolean finished = false;
+
+        private Session() {
+            executor = Executors.newFixedThreadPool(perTarget * targets.size(), r -> {
+                Thread thread = new Thread(r, "embedded-redis-bulk-loader-" + THREAD_COUNTER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            for (Redis target : targets) {
+                BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(perTarget * 2);
+                queues.add(queue);
+                for (int i = 0; i < perTarget; i++) {
+                    workers.add(executor.submit(() -> write(target, queue)));
+                }
+            }
+        }
+
+        private void add(String[] args) {
+            Batch batch;
+            if (args.length > 1) {
+                byte[] key = args[1].getBytes(StandardCharsets.UTF_8);
+                batch = batchOf(routing.targetOf(key, 0, key.length));
+                countKey(key, 0, key.length);
+            } else {
+                batch = batchOf(0);
+            }
+            batch.put(args);
+            added(batch);
+        }
+
+        private void addRaw(RespCommandReader command) {
+            Batch batch;
+            if (command.keyLength >= 0) {
+                batch = batchOf(routing.targetOf(command.bytes, command.keyOffset, command.keyLength));
+                countKey(command.bytes, command.keyOffset, command.keyLength);
+            } else {
+                batch = batchOf(0);
+            }
+            batch.putRaw(command.bytes, command.length);
+            added(batch);
+        }
+
+        private void countKey(byte[] key, int offset, int length) {
+            if (length == lastKeyLength && rangeEquals(key, offset, lastKey, length)) {
+                return;
+            }
+            keys++;
+            if (lastKey.length < length) {
+                lastKey = new byte[Math.max(length, lastKey.length * 2)];
+            }
+            System.arraycopy(key, offset, lastKey, 0, length);
+            lastKeyLength = length;
+        }
+
+        private Batch batchOf(int target) {
+            Batch batch = filling[target];
+            if (batch == null) {
+                batch = free.poll();
+                if (batch == null) {
+                    batch = new Batch();
+                }
+                batch.target = target;
+                filling[target] = batch;
+            }
+            return batch;
+        }
+
+        private void added(Batch batch) {
+            commands++;
+            if (batch.commands >= pipelineDepth) {
+                submit(batch);
+            }
+        }
+
+        private void submit(Batch batch) {
+            filling[batch.target] = null;
+            if (failure != null) {
+                throw new EmbeddedRedisException("Bulk load failed after " + commands + " commands", failure);
+            }
+            try {
+                queues.get(batch.target).put(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EmbeddedRedisException("Interrupted while loading", e);
+            }
+        }
+
+        private BulkLoadReport finish() {
+            finished = true;
+            endWorkers();
+            if (failure != null) {
+                throw new EmbeddedRedisException("Bulk load failed after " + commands + " commands", failure);
+            }
+            Map<String, Long> byType = new TreeMap<>();
+            errorsByType.forEach((type, count) -> byType.put(type, count.sum()));
+            return new BulkLoadReport(commands, keys, errors.sum(), byType, new ArrayList<>(errorSamples),
+                System.nanoTime() - begin);
+        }
+
+        /**
+         * Sends the last partial batches and one end marker per connection, then waits for all replies.
+         */
+        private void endWorkers() {
+            try {
+                for (Batch batch : filling) {
+                    if (batch != null && batch.commands > 0) {
+                        submit(batch);
+                    }
+                }
+                for (BlockingQueue<Batch> queue : queues) {
+                    for (int i = 0; i < perTarget; i++) {
+                        queue.put(Batch.END);
+                    }
+                }
+                for (Future<?> worker : workers) {
+                    worker.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EmbeddedRedisException("Interrupted while loading", e);
+            } catch (ExecutionException e) {
+                failure = e.getCause();
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        /**
+         * Keeps one batch in flight: the next batch is sent before the replies of the previous one are read.
+         */
+        private void write(Redis target, BlockingQueue<Batch> queue) {
+            Batch inFlight = null;
+            try (RespClient client = RespClient.connect(Routing.host(target), Routing.port(target))) {
+                while (true) {
+                    Batch batch = queue.take();
+                    if (batch == Batch.END) {
+                        break;
+                    }
+                    client.sendRaw(batch.bytes, 0, batch.length, batch.commands);
+                    client.flush();
+                    if (inFlight != null) {
+                        readReplies(client, inFlight);
+                    }
+                    inFlight = batch;
+                }
+                if (inFlight != null) {
+                    readReplies(client, inFlight);
+                }
+            } catch (IOException | RuntimeException e) {
+                failure = e;
+                discard(queue);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void readReplies(RespClient client, Batch batch) throws IOException {
+            for (int i = 0; i < batch.commands; i++) {
+                try {
+                    client.receive();
+                } catch (RedisCommandException e) {
+                    errors.increment();
+                    errorsByType.computeIfAbsent(e.errorCode(), type -> new LongAdder()).increment();
+                    if (errorSamples.size() < MAX_ERROR_SAMPLES) {
+                        errorSamples.add(e.getMessage());
+                    }
+                }
+            }
+            batch.clear();
+            free.offer(batch);
+        }
+
+        /**
+         * A failed connection keeps taking batches, so the producer never blocks on its full queue.
+         */
+        private void discard(BlockingQueue<Batch> queue) {
+            try {
+                while (queue.take() != Batch.END) {
+                    // dropped
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!finished) {
+                // the input failed, let the workers end without waiting for the partial batches
+                finished = true;
+                for (int i = 0; i < filling.length; i++) {
+                    filling[i] = null;
+                }
+                endWorkers();
+            }
+        }
+    }
+
+    /**
+     * Commands encoded in RESP, for one target.
+     */
+    private static final class Batch {
+        private static final Batch END = new Batch();
+        private static final byte[] CRLF = {'\r', '\n'};
+
+        private byte[] bytes = new byte[64 * 1024];
+        private int length = 0;
+        private int commands = 0;
+        private int target;
+
+        private void put(String[] args) {
+            putByte('*');
+            putNumber(args.length);
+            for (String arg : args) {
+                putBulk(arg);
+            }
+            commands++;
+        }
+
+        private void putRaw(byte[] command, int commandLength) {
+            ensure(commandLength);
+            System.arraycopy(command, 0, bytes, length, commandLength);
+            length += commandLength;
+            commands++;
+        }
+
+        private void clear() {
+            length = 0;
+            commands = 0;
+        }
+
+        private void putBulk(String arg) {
+            final int n = arg.length();
+            boolean ascii = true;
+            for (int i = 0; i < n && ascii; i++) {
+                ascii = arg.charAt(i) < 0x80;
+            }
+            if (!ascii) {
+                byte[] utf8 = arg.getBytes(StandardCharsets.UTF_8);
+                putByte('$');
+                putNumber(utf8.length);
+                ensure(utf8.length + 2);
+                System.arraycopy(utf8, 0, bytes, length, utf8.length);
+                length += utf8.length;
+            } else {
+                putByte('$');
+                putNumber(n);
+                ensure(n + 2);
+                for (int i = 0; i < n; i++) {
+                    bytes[length++] = (byte) arg.charAt(i);
+                }
+            }
+            bytes[length++] = CRLF[0];
+            bytes[length++] = CRLF[1];
+        }
+
+        private void putNumber(int number) {
+            ensure(13);
+            if (number < 10) {
+                bytes[length++] = (byte) ('0' + number);
+            } else {
+                String digits = Integer.toString(number);
+                for (int i = 0; i < digits.length(); i++) {
+                    bytes[length++] = (byte) digits.charAt(i);
+                }
+            }
+            bytes[length++] = CRLF[0];
+            bytes[length++] = CRLF[1];
+        }
+
+        private void putByte(char b) {
+            ensure(1);
+            bytes[length++] = (byte) b;
+        }
+
+        private void ensure(int n) {
+            if (length + n > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(length + n, bytes.length * 2));
+            }
+        }
+    }
+
+    /**
+     * Reads one RESP command (an array of bulk strings) at a time, keeping its raw bytes and the position of its key.
+     */
+    private static final class RespCommandReader {
+        private final InputStream in;
+        private byte[] bytes = new byte[1024];
+        private int length;
+        private int keyOffset;
+        private int keyLength;
+
+        private RespCommandReader(InputStream in) {
+            this.in = in;
+        }
+
+        private boolean next() throws IOException {
+            length = 0;
+            keyLength = -1;
+            int first = in.read();
+            while (first == '\r' || first == '\n') {
+                first = in.read();
+            }
+            if (first < 0) {
+                return false;
+            }
+            if (first != '*') {
+                throw new IOException("Expected a RESP array, got '" + (char) first + "'");
+            }
+            append(first);
+            int count = readNumber();
+            for (int i = 0; i < count; i++) {
+                int type = in.read();
+                if (type != '$') {
+                    throw new IOException("Expected a RESP bulk string, got '" + (char) type + "'");
+                }
+                append(type);
+                int size = readNumber();
+                if (i == 1) {
+                    keyOffset = length;
+                    keyLength = size;
+                }
+                readFully(size + 2);
+            }
+            return true;
+        }
+
+        private int readNumber() throws IOException {
+            int value = 0;
+            while (true) {
+                int b = in.read();
+                if (b < 0) {
+                    throw new EOFException("Truncated RESP input");
+                }
+                append(b);
+                if (b == '\r') {
+                    int lf = in.read();
+                    append(lf);
+                    return value;
+                }
+                value = value * 10 + (b - '0');
+            }
+        }
+
+        private void readFully(int n) throws IOException {
+            ensure(n);
+            int read = 0;
+            while (read < n) {
+                int r = in.read(bytes, length + read, n - read);
+                if (r < 0) {
+                    throw new EOFException("Truncated RESP input");
+                }
+                read += r;
+            }
+            length += n;
+        }
+
+        private void append(int b) {
+            ensure(1);
+            bytes[length++] = (byte) b;
+        }
+
+        private void ensure(int n) {
+            if (length + n > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(length + n, bytes.length * 2));
+            }
+        }
+    }
+}
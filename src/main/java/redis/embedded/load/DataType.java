@@ -0,0 +1,23 @@
+package redis.embedded.load;
+
+/**
+ * The types of keys a {@link Dataset} writes, and the command which writes each one.
+ */
+public enum DataType {
+    /**
+     * {@code SET key value [EX ttl]}
+     */
+    STRING,
+    /**
+     * {@code HSET key field value [field value ...]}
+     */
+    HASH,
+    /**
+     * {@code ZADD key score member [score member ...]}
+     */
+    ZSET,
+    /**
+     * One {@code XADD key <n>-0 field value} per entry, with explicit ids so the stream is reproducible.
+     */
+    STREAM
+}
@@ -0,0 +1,191 @@
+package redis.embedded.load;
+
+import redis.embedded.Redis;
+
+import java.util.*;
+
+/**
+ * A synthetic keyspace, generated from a seed: {@link #commands()} writes every key once, with the configured mix of
+ * types, value sizes and TTLs, and {@link #randomKey(SplittableRandom)} picks keys by their popularity for workloads.
+ *
+ * <pre>{@code
+ * Dataset dataset = Dataset.builder().keyCount(1_000_000)
+ *     .keyPopularity(KeyPopularity.zipf(0.99))
+ *     .valueSizes(Histogram.of(16, 128, 0.9).and(1024, 8192, 0.1))
+ *     .type(DataType.STRING, 80).type(DataType.HASH, 20)
+ *     .ttl(0.3, Histogram.uniform(60, 3600))
+ *     .build();
+ * dataset.loadInto(cluster);
+ * }</pre>
+ */
+public class Dataset {
+    private static final char[] ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789".toCharArray();
+
+    private final int keyCount;
+    private final String keyPrefix;
+    private final long seed;
+    private final KeyPopularity keyPopularity;
+    private final Histogram valueSizes;
+    private final Histogram elementsPerKey;
+    private final DataType[] types;
+    private final double[] typeWeights;
+    private final double totalTypeWeight;
+    private final double ttlFraction;
+    private final Histogram ttlSeconds;
+
+    Dataset(int keyCount, String keyPrefix, long seed, KeyPopularity keyPopularity, Histogram valueSizes,
+            Histogram elementsPerKey, Map<DataType, Double> typeWeights, double ttlFraction, Histogram ttlSeconds) {
+        this.keyCount = keyCount;
+        this.keyPrefix = keyPrefix;
+        this.seed = seed;
+        this.keyPopularity = keyPopularity;
+        this.valueSizes = valueSizes;
+        this.elementsPerKey = elementsPerKey;
+        this.types = typeWeights.keySet().toArray(new DataType[0]);
+        this.typeWeights = new double[types.length];
+        double total = 0;
+        for (int i = 0; i < types.length; i++) {
+            this.typeWeights[i] = typeWeights.get(types[i]);
+            total += this.typeWeights[i];
+        }
+        this.totalTypeWeight = total;
+        this.ttlFraction = ttlFraction;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public static DatasetBuilder builder() {
+        return new DatasetBuilder();
+    }
+
+    public int keyCount() {
+        return keyCount;
+    }
+
+    public String key(int index) {
+        return keyPrefix + index;
+    }
+
+    /**
+     * A key drawn by the {@link KeyPopularity} of the dataset, with a random owned by the calling thread.
+     */
+    public String randomKey(SplittableRandom random) {
+        return key(keyPopularity.sample(keyCount, random));
+    }
+
+    /**
+     * The commands which write the dataset, all commands of a key one after the other. Every call starts over
+     * and returns the same commands.
+     */
+    public Iterator<String[]> commands() {
+        return new CommandIterator();
+    }
+
+    public BulkLoadReport loadInto(Redis redis) {
+        return loadInto(BulkLoader.to(redis));
+    }
+
+    public BulkLoadReport loadInto(BulkLoader loader) {
+        return loader.load(commands());
+    }
+
+    /**
+     * A value with a size drawn from the value sizes of the dataset.
+     */
+    String value(SplittableRandom random) {
+        char[] chars = new char[valueSizes.sample(random)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        return new String(chars);
+    }
+
+    @Override
+    public String toString() {
+        return "Dataset[" + keyCount + " keys, " + keyPopularity + ", values " + valueSizes + ", types "
+            + Arrays.toString(types) + ", ttl " + ttlFraction + "]";
+    }
+
+    // --------------------------------------------------------------------private methods
+
+    private DataType sampleType(SplittableRandom random) {
+        double point = random.nextDouble() * totalTypeWeight;
+        for (int i = 0; i < types.length - 1; i++) {
+            if (point < typeWeights[i]) {
+                return types[i];
+            }
+            point -= typeWeights[i];
+        }
+        return types[types.length - 1];
+    }
+
+    private void commandsOf(int index, SplittableRandom random, Deque<String[]> out) {
+        final String key = key(index);
+        final DataType type = sampleType(random);
+        final int ttl = ttlFraction > 0 && random.nextDouble() < ttlFraction ? ttlSeconds.sample(random) : 0;
+        switch (type) {
+            case STRING:
+                out.add(ttl > 0
+                    ? new String[]{"SET", key, value(random), "EX", Integer.toString(ttl)}
+                    : new String[]{"SET", key, value(random)});
+                return;
+            case HASH: {
+                int fields = Math.max(1, elementsPerKey.sample(random));
+                String[] args = new String[2 + fields * 2];
+                args[0] = "HSET";
+                args[1] = key;
+                for (int i = 0; i < fields; i++) {
+                    args[2 + i * 2] = "field" + i;
+                    args[3 + i * 2] = value(random);
+                }
+                out.add(args);
+                break;
+            }
+            case ZSET: {
+                int members = Math.max(1, elementsPerKey.sample(random));
+                String[] args = new String[2 + members * 2];
+                args[0] = "ZADD";
+                args[1] = key;
+                for (int i = 0; i < members; i++) {
+                    args[2 + i * 2] = Integer.toString(random.nextInt(1000000));
+                    args[3 + i * 2] = "member" + i;
+                }
+                out.add(args);
+                break;
+            }
+            case STREAM: {
+                int entries = Math.max(1, elementsPerKey.sample(random));
+                for (int i = 0; i < entries; i++) {
+                    out.add(new String[]{"XADD", key, (i + 1) + "-0", "value", value(random)});
+                }
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unknown type " + type);
+        }
+        if (ttl > 0) {
+            out.add(new String[]{"EXPIRE", key, Integer.toString(ttl)});
+        }
+    }
+
+    private final class CommandIterator implements Iterator<String[]> {
+        private final SplittableRandom random = new SplittableRandom(seed);
+        private final Deque<String[]> pending = new ArrayDeque<>();
+        private int next = 0;
+
+        @Override
+        public boolean hasNext() {
+            if (pending.isEmpty() && next < keyCount) {
+                commandsOf(next++, random, pending);
+            }
+            return !pending.isEmpty();
+        }
+
+        @Override
+        public String[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return pending.poll();
+        }
+    }
+}
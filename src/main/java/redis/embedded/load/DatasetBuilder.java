@@ -0,0 +1,91 @@
+package redis.embedded.load;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+public class DatasetBuilder {
+    private int keyCount = 100000;
+    private String keyPrefix = "key:";
+    private long seed = 42L;
+    private KeyPopularity keyPopularity = KeyPopularity.uniform();
+    private Histogram valueSizes = Histogram.fixed(100);
+    private Histogram elementsPerKey = Histogram.fixed(10);
+    private final Map<DataType, Double> typeWeights = new EnumMap<>(DataType.class);
+    private double ttlFraction = 0;
+    private Histogram ttlSeconds = Histogram.fixed(3600);
+
+    DatasetBuilder() {
+    }
+
+    public DatasetBuilder keyCount(int keyCount) {
+        this.keyCount = keyCount;
+        return this;
+    }
+
+    public DatasetBuilder keyPrefix(String keyPrefix) {
+        this.keyPrefix = keyPrefix;
+        return this;
+    }
+
+    /**
+     * The same seed and settings always produce the same commands.
+     */
+    public DatasetBuilder seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * How keys are picked by {@link Dataset#randomKey(java.util.SplittableRandom)}, uniformly by default.
+     */
+    public DatasetBuilder keyPopularity(KeyPopularity keyPopularity) {
+        this.keyPopularity = keyPopularity;
+        return this;
+    }
+
+    /**
+     * The sizes in bytes of strings, hash values and stream entry values, 100 bytes by default.
+     */
+    public DatasetBuilder valueSizes(Histogram valueSizes) {
+        this.valueSizes = valueSizes;
+        return this;
+    }
+
+    /**
+     * The number of fields of a hash, members of a zset and entries of a stream, 10 by default.
+     */
+    public DatasetBuilder elementsPerKey(Histogram elementsPerKey) {
+        this.elementsPerKey = elementsPerKey;
+        return this;
+    }
+
+    /**
+     * Adds a type with its relative weight, for example {@code type(STRING, 70).type(HASH, 30)}; only strings by default.
+     */
+    public DatasetBuilder type(DataType type, double weight) {
+        this.typeWeights.put(type, weight);
+        return this;
+    }
+
+    /**
+     * The fraction of keys (0 to 1) which expire, with their time to live in seconds.
+     */
+    public DatasetBuilder ttl(double fraction, Histogram seconds) {
+        this.ttlFraction = fraction;
+        this.ttlSeconds = seconds;
+        return this;
+    }
+
+    public Dataset build() {
+        if (keyCount < 1) {
+            throw new IllegalArgumentException("Invalid key count " + keyCount);
+        }
+        Map<DataType, Double> types = new EnumMap<>(DataType.class);
+        if (typeWeights.isEmpty()) {
+            types.put(DataType.STRING, 1.0);
+        } else {
+            types.putAll(typeWeights);
+        }
+        return new Dataset(keyCount, keyPrefix, seed, keyPopularity, valueSizes, elementsPerKey, types, ttlFraction, ttlSeconds);
+    }
+}
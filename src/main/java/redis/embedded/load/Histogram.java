@@ -0,0 +1,73 @@
+package redis.embedded.load;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A distribution of integers as weighted ranges, for example value sizes: {@code Histogram.of(16, 64, 0.8).and(1024, 4096, 0.2)}
+ * gives sizes between 16 and 64 bytes 80% of the time, uniformly within the range. Histograms are immutable.
+ */
+public final class Histogram {
+    private final List<int[]> ranges;
+    private final List<Double> weights;
+    private final double totalWeight;
+
+    private Histogram(List<int[]> ranges, List<Double> weights) {
+        this.ranges = Collections.unmodifiableList(ranges);
+        this.weights = Collections.unmodifiableList(weights);
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        this.totalWeight = total;
+    }
+
+    public static Histogram fixed(int value) {
+        return of(value, value, 1);
+    }
+
+    public static Histogram uniform(int min, int max) {
+        return of(min, max, 1);
+    }
+
+    public static Histogram of(int min, int max, double weight) {
+        return new Histogram(new ArrayList<>(), new ArrayList<>()).and(min, max, weight);
+    }
+
+    /**
+     * Returns a copy with one more range.
+     */
+    public Histogram and(int min, int max, double weight) {
+        if (min > max || weight <= 0) {
+            throw new IllegalArgumentException("Invalid range [" + min + ", " + max + "] with weight " + weight);
+        }
+        List<int[]> newRanges = new ArrayList<>(ranges);
+        List<Double> newWeights = new ArrayList<>(weights);
+        newRanges.add(new int[]{min, max});
+        newWeights.add(weight);
+        return new Histogram(newRanges, newWeights);
+    }
+
+    public int sample(SplittableRandom random) {
+        double point = random.nextDouble() * totalWeight;
+        int index = 0;
+        while (index < ranges.size() - 1 && point >= weights.get(index)) {
+            point -= weights.get(index);
+            index++;
+        }
+        int[] range = ranges.get(index);
+        return range[0] == range[1] ? range[0] : range[0] + random.nextInt(range[1] - range[0] + 1);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("Histogram[");
+        for (int i = 0; i < ranges.size(); i++) {
+            text.append(i > 0 ? ", " : "").append(ranges.get(i)[0]).append("..").append(ranges.get(i)[1])
+                .append(": ").append(weights.get(i));
+        }
+        return text.append(']').toString();
+    }
+}
@@ -0,0 +1,119 @@
+package redis.embedded.load;
+
+import java.util.SplittableRandom;
+
+/**
+ * How often each key of a {@link Dataset} is accessed: every key equally often, or by a Zipf law where the key with
+ * index {@code i} is accessed in proportion to {@code 1 / (i + 1)^exponent}.
+ *
+ * <p>Zipf indexes are drawn by rejection-inversion (Hörmann and Derflinger), in constant time and memory for any
+ * number of keys.
+ */
+public abstract class KeyPopularity {
+
+    public static KeyPopularity uniform() {
+        return new Uniform();
+    }
+
+    /**
+     * @param exponent the skew, {@code 0.99} is the usual YCSB choice; must be positive
+     */
+    public static KeyPopularity zipf(double exponent) {
+        if (exponent <= 0) {
+            throw new IllegalArgumentException("Invalid zipf exponent " + exponent);
+        }
+        return new Zipf(exponent);
+    }
+
+    /**
+     * Draws the index of a key, between {@code 0} (the most popular) and {@code keyCount - 1}.
+     */
+    public abstract int sample(int keyCount, SplittableRandom random);
+
+    private static final class Uniform extends KeyPopularity {
+        @Override
+        public int sample(int keyCount, SplittableRandom random) {
+            return random.nextInt(keyCount);
+        }
+
+        @Override
+        public String toString() {
+            return "uniform";
+        }
+    }
+
+    private static final class Zipf extends KeyPopularity {
+        private final double exponent;
+        private volatile Parameters parameters;
+
+        private Zipf(double exponent) {
+            this.exponent = exponent;
+        }
+
+        @Override
+        public int sample(int keyCount, SplittableRandom random) {
+            Parameters p = parameters;
+            if (p == null || p.keyCount != keyCount) {
+                p = new Parameters(keyCount);
+                parameters = p;
+            }
+            while (true) {
+                double u = p.hIntegralKeyCount + random.nextDouble() * (p.hIntegralX1 - p.hIntegralKeyCount);
+                double x = hIntegralInverse(u);
+                int k = (int) (x + 0.5);
+                if (k < 1) {
+                    k = 1;
+                } else if (k > keyCount) {
+                    k = keyCount;
+                }
+                if (k - x <= p.s || u >= hIntegral(k + 0.5) - h(k)) {
+                    return k - 1;
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "zipf(" + exponent + ")";
+        }
+
+        private final class Parameters {
+            private final int keyCount;
+            private final double hIntegralX1;
+            private final double hIntegralKeyCount;
+            private final double s;
+
+            private Parameters(int keyCount) {
+                this.keyCount = keyCount;
+                this.hIntegralX1 = hIntegral(1.5) - 1;
+                this.hIntegralKeyCount = hIntegral(keyCount + 0.5);
+                this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+            }
+        }
+
+        private double h(double x) {
+            return Math.exp(-exponent * Math.log(x));
+        }
+
+        private double hIntegral(double x) {
+            double logX = Math.log(x);
+            return expm1OverX((1 - exponent) * logX) * logX;
+        }
+
+        private double hIntegralInverse(double x) {
+            double t = x * (1 - exponent);
+            if (t < -1) {
+                t = -1;
+            }
+            return Math.exp(log1pOverX(t) * x);
+        }
+
+        private static double log1pOverX(double x) {
+            return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+        }
+
+        private static double expm1OverX(double x) {
+            return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x * (1.0 / 3) * (1 + 0.25 * x));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package redis.embedded.load;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencies in nanoseconds, counted in log-linear buckets in the way of HdrHistogram: values below 128 are exact,
+ * larger ones fall into one of 64 buckets per power of two, so percentiles are within 1.6% of the recorded values,
+ * in a fixed 30KB whatever the number of samples.
+ *
+ * <p>A histogram is not thread-safe, each thread records into its own and they are {@link #add(LatencyHistogram) added}
+ * at the end.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKETS = 64;
+    private static final int EXACT = SUB_BUCKETS * 2;
+    private static final int BUCKET_COUNT = EXACT + (63 - 7) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long count = 0;
+    private long sum = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = 0;
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[indexOf(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long min() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * The latency below which {@code percentile} percent of the samples are, for example {@code percentile(99.9)};
+     * the highest value of the bucket, capped by the maximum recorded.
+     */
+    public long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, highestOf(i));
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LatencyHistogram[count=%d, mean=%.1fus, p50=%.1fus, p99=%.1fus, p99.9=%.1fus, max=%.1fus]",
+            count, mean() / 1000, micros(percentile(50)), micros(percentile(99)), micros(percentile(99.9)), micros(max));
+    }
+
+    // --------------------------------------------------------------------private methods
+
+    static int indexOf(long value) {
+        if (value < EXACT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int top = (int) (value >>> (exponent - 6));
+        return EXACT + (exponent - 7) * SUB_BUCKETS + (top - SUB_BUCKETS);
+    }
+
+    static long highestOf(int index) {
+        if (index < EXACT) {
+            return index;
+        }
+        int exponent = 7 + (index - EXACT) / SUB_BUCKETS;
+        long top = SUB_BUCKETS + (index - EXACT) % SUB_BUCKETS;
+        return ((top + 1) << (exponent - 6)) - 1;
+    }
+
+    private static double micros(long nanos) {
+        return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+}
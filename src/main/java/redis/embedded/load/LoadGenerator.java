@@ -0,0 +1,433 @@
+package redis.embedded.load;
+
+import redis.embedded.Redis;
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.exceptions.RedisCommandException;
+import redis.embedded.resp.RespClient;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a GET/SET workload against any {@link Redis} for a while, and reports its latency and throughput, the
+ * in-process counterpart of {@code redis-benchmark} which follows the ports and the topology of this library.
+ *
+ * <p>Keys and values come from a {@link Dataset}, usually loaded beforehand, keys are picked by its popularity and
+ * routed as by the {@link BulkLoader}. Each of the {@link #connections(int)} threads has one connection per master,
+ * and runs in one of three modes:
+ * <ul>
+ * <li>closed loop, the default: sends {@link #pipelineDepth(int)} commands, waits for their replies, and starts
+ * over at once; latencies are service times</li>
+ * <li>closed loop at a {@link #rate(double)}: the same, but every pipeline is due at a fixed time and waits for it;
+ * latencies are measured from that time</li>
+ * <li>{@link #openLoop(double) open loop}: every command is due at a fixed time and sent then, whether the replies of
+ * the previous ones came back or not, with at most {@link #pipelineDepth(int)} commands in flight per thread;
+ * latencies are measured from that time</li>
+ * </ul>
+ *
+ * <pre>{@code
+ * LoadReport report = LoadGenerator.to(cluster).dataset(dataset).readRatio(0.8)
+ *     .connections(8).openLoop(50_000).warmup(Duration.ofSeconds(2)).duration(Duration.ofSeconds(30))
+ *     .run();
+ * report.latency().percentile(99.9);
+ * }</pre>
+ */
+public class LoadGenerator {
+    public static final double DEFAULT_READ_RATIO = 0.9;
+
+    private static final long MAX_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final Routing routing;
+    private Dataset dataset;
+    private double readRatio = DEFAULT_READ_RATIO;
+    private int connections = Runtime.getRuntime().availableProcessors();
+    private int pipelineDepth = 1;
+    private double rate = 0;
+    private boolean openLoop = false;
+    private Duration duration = Duration.ofSeconds(10);
+    private Duration warmup = Duration.ZERO;
+    private Duration interval = Duration.ofSeconds(1);
+    private long seed = 42L;
+
+    private LoadGenerator(Routing routing) {
+        this.routing = routing;
+    }
+
+    public static LoadGenerator to(Redis redis) {
+        return new LoadGenerator(Routing.of(redis));
+    }
+
+    /**
+     * Where keys and values come from, by default 100000 keys of 100 bytes accessed uniformly.
+     */
+    public LoadGenerator dataset(Dataset dataset) {
+        this.dataset = dataset;
+        return this;
+    }
+
+    /**
+     * The fraction of GETs (0 to 1), the rest are SETs.
+     */
+    public LoadGenerator readRatio(double readRatio) {
+        if (readRatio < 0 || readRatio > 1) {
+            throw new IllegalArgumentException("Invalid read ratio " + readRatio);
+        }
+        this.readRatio = readRatio;
+        return this;
+    }
+
+    /**
+     * The number of threads, each with one connection per master, by default one per core.
+     */
+    public LoadGenerator connections(int connections) {
+        this.connections = connections;
+        return this;
+    }
+
+    /**
+     * How many commands a thread sends at once in a closed loop, or keeps in flight at most in an open loop.
+     */
+    public LoadGenerator pipelineDepth(int pipelineDepth) {
+        this.pipelineDepth = pipelineDepth;
+        return this;
+    }
+
+    /**
+     * Runs a closed loop throttled to {@code operationsPerSecond} in total.
+     */
+    public LoadGenerator rate(double operationsPerSecond) {
+        return schedule(operationsPerSecond, false);
+    }
+
+    /**
+     * Runs an open loop sending {@code operationsPerSecond} in total.
+     */
+    public LoadGenerator openLoop(double operationsPerSecond) {
+        return schedule(operationsPerSecond, true);
+    }
+
+    /**
+     * How long the load is measured, after the warmup.
+     */
+    public LoadGenerator duration(Duration duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    /**
+     * How long the load runs before it is measured.
+     */
+    public LoadGenerator warmup(Duration warmup) {
+        this.warmup = warmup;
+        return this;
+    }
+
+    /**
+     * The period of the throughput samples, one second by default.
+     */
+    public LoadGenerator interval(Duration interval) {
+        this.interval = interval;
+        return this;
+    }
+
+    /**
+     * The seed of the keys, values and operations picked by the threads.
+     */
+    public LoadGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public LoadReport run() throws EmbeddedRedisException {
+        if (connections < 1 || pipelineDepth < 1) {
+            throw new IllegalArgumentException("Invalid connections " + connections + " or pipeline depth " + pipelineDepth);
+        }
+        final Dataset keys = dataset != null ? dataset : Dataset.builder().build();
+        final SplittableRandom seeds = new SplittableRandom(seed);
+        final long start = System.nanoTime();
+        final long measureFrom = start + warmup.toNanos();
+        final long end = measureFrom + duration.toNanos();
+
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            workers.add(new Worker(keys, seeds.split(), start, measureFrom, end));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(connections, r -> {
+            Thread thread = new Thread(r, "embedded-redis-load-generator-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Worker worker : workers) {
+                futures.add(executor.submit(worker));
+            }
+            List<LoadReport.Sample> throughput = sample(workers, futures, measureFrom, end);
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            LatencyHistogram reads = new LatencyHistogram();
+            LatencyHistogram writes = new LatencyHistogram();
+            long errors = 0, misses = 0;
+            for (Worker worker : workers) {
+                reads.add(worker.reads);
+                writes.add(worker.writes);
+                errors += worker.errors;
+                misses += worker.misses;
+            }
+            return new LoadReport(reads, writes, errors, misses, end - measureFrom, rate, openLoop, throughput);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddedRedisException("Interrupted while generating load", e);
+        } catch (ExecutionException e) {
+            throw new EmbeddedRedisException("Load generation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // --------------------------------------------------------------------private methods
+
+    private LoadGenerator schedule(double operationsPerSecond, boolean openLoop) {
+        if (operationsPerSecond <= 0) {
+            throw new IllegalArgumentException("Invalid rate " + operationsPerSecond);
+        }
+        this.rate = operationsPerSecond;
+        this.openLoop = openLoop;
+        return this;
+    }
+
+    /**
+     * Counts the operations completed in every interval of the measured period, until the end or the first failure.
+     */
+    private List<LoadReport.Sample> sample(List<Worker> workers, List<Future<?>> futures, long measureFrom, long end) {
+        List<LoadReport.Sample> samples = new ArrayList<>();
+        final long period = Math.max(1, interval.toNanos());
+        parkUntil(measureFrom);
+        long from = measureFrom;
+        long before = completed(workers);
+        while (from < end && !anyDone(futures)) {
+            long to = Math.min(end, from + period);
+            parkUntil(to);
+            long after = completed(workers);
+            samples.add(new LoadReport.Sample(TimeUnit.NANOSECONDS.toMillis(from - measureFrom), to - from, after - before));
+            before = after;
+            from = to;
+        }
+        return samples;
+    }
+
+    private static long completed(List<Worker> workers) {
+        long total = 0;
+        for (Worker worker : workers) {
+            total += worker.completed.sum();
+        }
+        return total;
+    }
+
+    private static boolean anyDone(List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            if (future.isDone()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * One thread and its connections, with its own random, histograms and counters.
+     */
+    private final class Worker implements Callable<Void> {
+        private final Dataset keys;
+        private final SplittableRandom random;
+        private final long start;
+        private final long measureFrom;
+        private final long end;
+        private final RespClient[] clients = new RespClient[routing.targets().size()];
+        // the commands in flight of each connection, oldest first
+        private final long[][] dueTimes = new long[clients.length][pipelineDepth];
+        private final boolean[][] isRead = new boolean[clients.length][pipelineDepth];
+        private final int[] heads = new int[clients.length];
+        private final int[] sizes = new int[clients.length];
+
+        private final LatencyHistogram reads = new LatencyHistogram();
+        private final LatencyHistogram writes = new LatencyHistogram();
+        private final LongAdder completed = new LongAdder();
+        private long errors = 0;
+        private long misses = 0;
+        private int inFlight = 0;
+
+        private Worker(Dataset keys, SplittableRandom random, long start, long measureFrom, long end) {
+            this.keys = keys;
+            this.random = random;
+            this.start = start;
+            this.measureFrom = measureFrom;
+            this.end = end;
+        }
+
+        @Override
+        public Void call() throws IOException {
+            try {
+                for (int i = 0; i < clients.length; i++) {
+                    Redis target = routing.targets().get(i);
+                    clients[i] = RespClient.connect(Routing.host(target), Routing.port(target));
+                }
+                if (openLoop) {
+                    runOpenLoop();
+                } else {
+                    runClosedLoop();
+                }
+                return null;
+            } finally {
+                for (RespClient client : clients) {
+                    if (client != null) {
+                        client.close();
+                    }
+                }
+            }
+        }
+
+        private void runClosedLoop() throws IOException {
+            final double nanosPerPipeline = rate > 0 ? 1e9 * connections * pipelineDepth / rate : 0;
+            for (long k = 0; ; k++) {
+                long due;
+                if (rate > 0) {
+                    due = start + (long) (k * nanosPerPipeline);
+                    if (due >= end) {
+                        return;
+                    }
+                    parkUntil(due);
+                } else {
+                    due = System.nanoTime();
+                    if (due >= end) {
+                        return;
+                    }
+                }
+                for (int i = 0; i < pipelineDepth; i++) {
+                    send(due);
+                }
+                flush();
+                while (inFlight > 0) {
+                    for (int target = 0; target < clients.length; target++) {
+                        if (sizes[target] > 0) {
+                            receive(target);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void runOpenLoop() throws IOException {
+            final double nanosPerCommand = 1e9 * connections / rate;
+            long k = 0;
+            long due = start;
+            while (due < end || inFlight > 0) {
+                long now = System.nanoTime();
+                int sent = 0;
+                while (due < end && due <= now && inFlight < pipelineDepth) {
+                    send(due);
+                    sent++;
+                    due = start + (long) (++k * nanosPerCommand);
+                }
+                if (sent > 0) {
+                    flush();
+                }
+                boolean received = false;
+                for (int target = 0; target < clients.length; target++) {
+                    while (sizes[target] > 0 && clients[target].replyAvailable()) {
+                        receive(target);
+                        received = true;
+                    }
+                }
+                if (sent == 0 && !received) {
+                    if (inFlight >= pipelineDepth || (due >= end && inFlight > 0)) {
+                        receive(oldestTarget());
+                    } else if (due > now) {
+                        LockSupport.parkNanos(Math.min(due - now, MAX_PARK_NANOS));
+                    }
+                }
+            }
+        }
+
+        private void send(long due) throws IOException {
+            final String key = keys.randomKey(random);
+            final boolean read = random.nextDouble() < readRatio;
+            final int target = routing.targetOf(key);
+            if (read) {
+                clients[target].send("GET", key);
+            } else {
+                clients[target].send("SET", key, keys.value(random));
+            }
+            int slot = (heads[target] + sizes[target]) % pipelineDepth;
+            dueTimes[target][slot] = due;
+            isRead[target][slot] = read;
+            sizes[target]++;
+            inFlight++;
+        }
+
+        private void flush() throws IOException {
+            for (RespClient client : clients) {
+                if (client.pending() > 0) {
+                    client.flush();
+                }
+            }
+        }
+
+        private void receive(int target) throws IOException {
+            Object reply = null;
+            boolean failed = false;
+            try {
+                reply = clients[target].receive();
+            } catch (RedisCommandException e) {
+                failed = true;
+            }
+            final long now = System.nanoTime();
+            final int slot = heads[target];
+            heads[target] = (slot + 1) % pipelineDepth;
+            sizes[target]--;
+            inFlight--;
+
+            final long due = dueTimes[target][slot];
+            if (due < measureFrom) {
+                return;
+            }
+            final boolean read = isRead[target][slot];
+            (read ? reads : writes).record(now - due);
+            completed.increment();
+            if (failed) {
+                errors++;
+            } else if (read && reply == null) {
+                misses++;
+            }
+        }
+
+        private int oldestTarget() {
+            int oldest = -1;
+            for (int target = 0; target < clients.length; target++) {
+                if (sizes[target] > 0 && (oldest < 0 || dueTimes[target][heads[target]] < dueTimes[oldest][heads[oldest]])) {
+                    oldest = target;
+                }
+            }
+            return oldest;
+        }
+    }
+}
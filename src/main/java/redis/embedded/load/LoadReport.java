@@ -0,0 +1,149 @@
+package redis.embedded.load;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outcome of a {@link LoadGenerator} run, over the measured period (after the warmup): the latency of reads and
+ * writes, and the throughput of every interval.
+ */
+public class LoadReport {
+    private final LatencyHistogram reads;
+    private final LatencyHistogram writes;
+    private final LatencyHistogram all;
+    private final long errors;
+    private final long misses;
+    private final long elapsedNanos;
+    private final double targetRate;
+    private final boolean openLoop;
+    private final List<Sample> throughput;
+
+    LoadReport(LatencyHistogram reads, LatencyHistogram writes, long errors, long misses, long elapsedNanos,
+               double targetRate, boolean openLoop, List<Sample> throughput) {
+        this.reads = reads;
+        this.writes = writes;
+        this.all = new LatencyHistogram();
+        this.all.add(reads);
+        this.all.add(writes);
+        this.errors = errors;
+        this.misses = misses;
+        this.elapsedNanos = elapsedNanos;
+        this.targetRate = targetRate;
+        this.openLoop = openLoop;
+        this.throughput = Collections.unmodifiableList(throughput);
+    }
+
+    public long operations() {
+        return all.count();
+    }
+
+    /**
+     * The latency of all operations. With a target rate, latencies are measured from the time each command was due
+     * to be sent, not from the time it was actually sent, so that stalls are not hidden by the commands the
+     * generator failed to send meanwhile (coordinated omission).
+     */
+    public LatencyHistogram latency() {
+        return all;
+    }
+
+    public LatencyHistogram readLatency() {
+        return reads;
+    }
+
+    public LatencyHistogram writeLatency() {
+        return writes;
+    }
+
+    /**
+     * The number of error replies.
+     */
+    public long errors() {
+        return errors;
+    }
+
+    /**
+     * The number of reads of a missing key.
+     */
+    public long misses() {
+        return misses;
+    }
+
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double operationsPerSecond() {
+        return elapsedNanos > 0 ? all.count() * 1e9 / elapsedNanos : 0;
+    }
+
+    /**
+     * The requested operations per second, {@code 0} when the generator ran as fast as it could.
+     */
+    public double targetRate() {
+        return targetRate;
+    }
+
+    public boolean isOpenLoop() {
+        return openLoop;
+    }
+
+    /**
+     * Whether latencies are corrected for coordinated omission, which needs a target rate.
+     */
+    public boolean isCorrected() {
+        return targetRate > 0;
+    }
+
+    /**
+     * The operations completed in each interval of the measured period.
+     */
+    public List<Sample> throughput() {
+        return throughput;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LoadReport[%d operations in %dms (%.0f ops/s%s), %d errors, %d misses, %s latency p50=%.1fus "
+                + "p99=%.1fus p99.9=%.1fus max=%.1fus]",
+            all.count(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos), operationsPerSecond(),
+            targetRate > 0 ? String.format(" of %.0f %s", targetRate, openLoop ? "open loop" : "closed loop") : "",
+            errors, misses, isCorrected() ? "corrected" : "service", all.percentile(50) / 1e3,
+            all.percentile(99) / 1e3, all.percentile(99.9) / 1e3, all.max() / 1e3);
+    }
+
+    /**
+     * The operations completed during one interval.
+     */
+    public static final class Sample {
+        private final long offsetMillis;
+        private final long durationNanos;
+        private final long operations;
+
+        Sample(long offsetMillis, long durationNanos, long operations) {
+            this.offsetMillis = offsetMillis;
+            this.durationNanos = durationNanos;
+            this.operations = operations;
+        }
+
+        /**
+         * When the interval started, from the beginning of the measured period.
+         */
+        public long offsetMillis() {
+            return offsetMillis;
+        }
+
+        public long operations() {
+            return operations;
+        }
+
+        public double operationsPerSecond() {
+            return durationNanos > 0 ? operations * 1e9 / durationNanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%dms: %.0f ops/s", offsetMillis, operationsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package redis.embedded.load;
+
+import redis.embedded.Redis;
+import redis.embedded.RedisCluster;
+import redis.embedded.RedisSentinel;
+import redis.embedded.RedisServer;
+import redis.embedded.RedisShardedCluster;
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.util.SlotUtil;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The instances commands are written to, and which one gets a key: a {@link RedisShardedCluster} routes a key to
+ * the master serving its slot, a {@link RedisCluster} to the master of one of its replication groups (the slot of
+ * the key modulo the number of groups), anything else to itself.
+ */
+final class Routing {
+    private final List<Redis> targets;
+    private final int[] slotTargets;
+
+    private Routing(List<Redis> targets, int[] slotTargets) {
+        if (targets.isEmpty()) {
+            throw new EmbeddedRedisException("Nothing to write to, there are no masters");
+        }
+        for (Redis target : targets) {
+            if (target.ports().isEmpty()) {
+                throw new EmbeddedRedisException("Can not write to " + target + ", it has no TCP port");
+            }
+        }
+        this.targets = targets;
+        this.slotTargets = slotTargets;
+    }
+
+    static Routing of(Redis redis) {
+        if (redis instanceof RedisShardedCluster) {
+            RedisShardedCluster cluster = (RedisShardedCluster) redis;
+            List<Redis> masters = cluster.masters();
+            int[] slotTargets = new int[SlotUtil.SLOT_COUNT];
+            for (int slot = 0; slot < slotTargets.length; slot++) {
+                slotTargets[slot] = masters.indexOf(cluster.masterOfSlot(slot));
+            }
+            return new Routing(masters, slotTargets);
+        }
+        if (redis instanceof RedisCluster && ((RedisCluster) redis).masters().size() > 1) {
+            List<Redis> masters = ((RedisCluster) redis).masters();
+            int[] slotTargets = new int[SlotUtil.SLOT_COUNT];
+            for (int slot = 0; slot < slotTargets.length; slot++) {
+                slotTargets[slot] = slot % masters.size();
+            }
+            return new Routing(masters, slotTargets);
+        }
+        if (redis instanceof RedisCluster) {
+            return new Routing(((RedisCluster) redis).masters(), null);
+        }
+        return new Routing(Collections.singletonList(redis), null);
+    }
+
+    List<Redis> targets() {
+        return targets;
+    }
+
+    int targetOf(String key) {
+        return slotTargets == null ? 0 : slotTargets[SlotUtil.slot(key)];
+    }
+
+    int targetOf(byte[] key, int offset, int length) {
+        return slotTargets == null ? 0 : slotTargets[SlotUtil.slot(key, offset, length)];
+    }
+
+    static String host(Redis redis) {
+        if (redis instanceof RedisServer) {
+            return ((RedisServer) redis).host();
+        }
+        if (redis instanceof RedisSentinel) {
+            return ((RedisSentinel) redis).host();
+        }
+        return "127.0.0.1";
+    }
+
+    static int port(Redis redis) {
+        return redis.ports().get(0);
+    }
+}
@@ -0,0 +1,74 @@
+package redis.embedded.log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A fixed-size ring of the most recent output lines of a redis process.
+ */
+public class LogBuffer {
+
+    private final String[] lines;
+    private long total = 0;
+
+    public LogBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.lines = new String[capacity];
+    }
+
+    public synchronized void add(String line) {
+        lines[(int) (total % lines.length)] = line;
+        total++;
+        notifyAll();
+    }
+
+    /**
+     * Returns the buffered lines, oldest first.
+     */
+    public synchronized List<String> lines() {
+        int size = (int) Math.min(total, lines.length);
+        if (size == 0) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<>(size);
+        for (long i = total - size; i < total; i++) {
+            result.add(lines[(int) (i % lines.length)]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of lines ever added, including the ones already overwritten.
+     */
+    public synchronized long total() {
+        return total;
+    }
+
+    public synchronized boolean contains(Pattern pattern) {
+        for (String line : lines()) {
+            if (pattern.matcher(line).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Waits until a line is added after the given {@link #total()}, or the timeout elapsed.
+     */
+    public synchronized void awaitLine(long total, long timeoutMillis) throws InterruptedException {
+        if (this.total == total) {
+            wait(timeoutMillis);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.join("\n", lines());
+    }
+
+}
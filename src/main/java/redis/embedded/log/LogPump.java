@@ -0,0 +1,248 @@
+package redis.embedded.log;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A JVM-wide multiplexer which reads stdout and stderr of every redis process.
+ *
+ * <p>On Java 21+ each stream is read by a virtual thread with plain blocking reads. On older JVMs a small,
+ * fixed pool of platform threads polls all registered streams without blocking, so the number of threads
+ * does not grow with the number of instances.
+ */
+public class LogPump {
+    private static final int POLLER_COUNT = 2;
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final long MIN_IDLE_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private static final LogPump SHARED = new LogPump(newVirtualThreadExecutor(), POLLER_COUNT);
+
+    private final ExecutorService virtualThreads;
+    private final Poller[] pollers;
+    private final AtomicInteger nextPoller = new AtomicInteger();
+
+    LogPump(ExecutorService virtualThreads, int pollerCount) {
+        this.virtualThreads = virtualThreads;
+        this.pollers = new Poller[virtualThreads != null ? 0 : pollerCount];
+        for (int i = 0; i < pollers.length; i++) {
+            pollers[i] = new Poller("embedded-redis-log-pump-" + (i + 1));
+        }
+    }
+
+    public static LogPump shared() {
+        return SHARED;
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads != null;
+    }
+
+    /**
+     * Pumps stdout and stderr of the process into the buffer and the sink until both streams are closed, then
+     * closes the sink if it is {@link Closeable}.
+     */
+    public Attachment attach(Process process, String source, LogBuffer buffer, LogSink sink) {
+        Attachment attachment = new Attachment();
+        Channel out = new Channel(process, process.getInputStream(), false, source, buffer, sink, attachment);
+        Channel err = new Channel(process, process.getErrorStream(), true, source, buffer, sink, attachment);
+        if (virtualThreads != null) {
+            virtualThreads.execute(out::readBlocking);
+            virtualThreads.execute(err::readBlocking);
+        } else {
+            pollers[Math.floorMod(nextPoller.getAndIncrement(), pollers.length)].add(out);
+            pollers[Math.floorMod(nextPoller.getAndIncrement(), pollers.length)].add(err);
+        }
+        return attachment;
+    }
+
+    public static class Attachment {
+        private final CountDownLatch drained = new CountDownLatch(2);
+
+        /**
+         * Waits until both streams reached their end, which happens shortly after the process exited.
+         */
+        public boolean awaitDrained(long timeoutMillis) throws InterruptedException {
+            return drained.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // --------------------------------------------------------------------private methods
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static class Channel {
+        private final Process process;
+        private final InputStream input;
+        private final boolean error;
+        private final String source;
+        private final LogBuffer buffer;
+        private final LogSink sink;
+        private final Attachment attachment;
+        private final ByteArrayOutputStream partial = new ByteArrayOutputStream(256);
+        private boolean closed = false;
+
+        private Channel(Process process, InputStream input, boolean error, String source,
+                        LogBuffer buffer, LogSink sink, Attachment attachment) {
+            this.process = process;
+            this.input = input;
+            this.error = error;
+            this.source = source;
+            this.buffer = buffer;
+            this.sink = sink;
+            this.attachment = attachment;
+        }
+
+        private void readBlocking() {
+            byte[] bytes = new byte[READ_BUFFER_SIZE];
+            try {
+                int n;
+                while ((n = input.read(bytes)) != -1) {
+                    feed(bytes, n);
+                }
+            } catch (IOException e) {
+                // the stream was closed
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * Reads whatever is available without blocking.
+         *
+         * @return {@code true} if any progress was made
+         */
+        private boolean poll(byte[] bytes) {
+            try {
+                int available = input.available();
+                if (available > 0) {
+                    feed(bytes, input.read(bytes, 0, Math.min(available, bytes.length)));
+                    return true;
+                }
+                if (process.isAlive()) {
+                    return false;
+                }
+                // the process is gone, so the read below returns the rest of the output or the end of stream
+                int n = input.read(bytes);
+                if (n == -1) {
+                    close();
+                } else {
+                    feed(bytes, n);
+                }
+                return true;
+            } catch (IOException e) {
+                close();
+                return true;
+            }
+        }
+
+        private boolean isClosed() {
+            return closed;
+        }
+
+        private void feed(byte[] bytes, int length) {
+            for (int i = 0; i < length; i++) {
+                if (bytes[i] == '\n') {
+                    emit();
+                } else {
+                    partial.write(bytes[i]);
+                }
+            }
+        }
+
+        private void emit() {
+            byte[] bytes = partial.toByteArray();
+            partial.reset();
+            int length = bytes.length;
+            if (length > 0 && bytes[length - 1] == '\r') {
+                length--;
+            }
+            String line = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            buffer.add(line);
+            try {
+                sink.log(source, error, line);
+            } catch (RuntimeException e) {
+                // the sink must never break the pump
+            }
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (partial.size() > 0) {
+                emit();
+            }
+            try {
+                input.close();
+            } catch (IOException ignored) {
+                // already closed
+            }
+            attachment.drained.countDown();
+            if (attachment.drained.getCount() == 0 && sink instanceof Closeable) {
+                try {
+                    ((Closeable) sink).close();
+                } catch (IOException | RuntimeException e) {
+                    // the sink must never break the pump
+                }
+            }
+        }
+    }
+
+    private static class Poller implements Runnable {
+        private final String name;
+        private final List<Channel> channels = new CopyOnWriteArrayList<>();
+        private Thread thread;
+
+        private Poller(String name) {
+            this.name = name;
+        }
+
+        private synchronized void add(Channel channel) {
+            channels.add(channel);
+            if (thread == null) {
+                thread = new Thread(this, name);
+                thread.setDaemon(true);
+                thread.start();
+            } else {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            byte[] bytes = new byte[READ_BUFFER_SIZE];
+            long idle = MIN_IDLE_NANOS;
+            while (true) {
+                boolean progress = false;
+                for (Channel channel : channels) {
+                    progress |= channel.poll(bytes);
+                    if (channel.isClosed()) {
+                        channels.remove(channel);
+                    }
+                }
+                if (progress) {
+                    idle = MIN_IDLE_NANOS;
+                } else {
+                    // no output: back off, a new channel unparks the thread
+                    LockSupport.parkNanos(this, channels.isEmpty() ? TimeUnit.SECONDS.toNanos(1) : idle);
+                    idle = Math.min(idle << 1, MAX_IDLE_NANOS);
+                }
+            }
+        }
+    }
+
+}
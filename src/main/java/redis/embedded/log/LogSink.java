@@ -0,0 +1,17 @@
+package redis.embedded.log;
+
+/**
+ * Receives the output lines of redis processes, see {@link LogSinks} for the built-in sinks.
+ *
+ * <p>Implementations are called from the shared {@link LogPump} threads and must be thread-safe.
+ */
+public interface LogSink {
+
+    /**
+     * @param source the instance which printed the line, for example {@code RedisServer[6379]}
+     * @param error  whether the line was printed to stderr
+     * @param line   the line, without line terminator
+     */
+    void log(String source, boolean error, String line);
+
+}
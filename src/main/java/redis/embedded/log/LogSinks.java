@@ -0,0 +1,118 @@
+package redis.embedded.log;
+
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Built-in {@link LogSink} implementations.
+ */
+public class LogSinks {
+
+    private static final LogSink NOOP = (source, error, line) -> { };
+
+    private static final LogSink CONSOLE = (source, error, line) -> System.out.println(line);
+
+    private static final LogSink CONSOLE_ERRORS = (source, error, line) -> {
+        if (error) {
+            System.out.println(line);
+        }
+    };
+
+    /**
+     * Discards every line, the lines are still kept in the per-instance ring.
+     */
+    public static LogSink noop() {
+        return NOOP;
+    }
+
+    /**
+     * Prints every line to {@code System.out}.
+     */
+    public static LogSink console() {
+        return CONSOLE;
+    }
+
+    /**
+     * Prints the stderr lines to {@code System.out}, this is the default sink.
+     */
+    public static LogSink consoleErrors() {
+        return CONSOLE_ERRORS;
+    }
+
+    /**
+     * Logs stdout lines at INFO level and stderr lines at WARN level, requires slf4j-api on the classpath.
+     */
+    public static LogSink slf4j() {
+        return new Slf4jLogSink();
+    }
+
+    /**
+     * Appends every line, prefixed with its source, to the file. The file is closed whenever the output of an
+     * instance ends, and opened again by the next line.
+     */
+    public static LogSink file(File file) {
+        return new FileLogSink(file);
+    }
+
+    private static class FileLogSink implements LogSink, Closeable {
+        private final File file;
+        private Writer writer;
+
+        private FileLogSink(File file) {
+            this.file = file;
+            try {
+                this.writer = open();
+            } catch (IOException e) {
+                throw new EmbeddedRedisException("Could not open log file " + file, e);
+            }
+        }
+
+        @Override
+        public synchronized void log(String source, boolean error, String line) {
+            try {
+                if (writer == null) {
+                    writer = open();
+                }
+                writer.write(source);
+                writer.write(' ');
+                writer.write(line);
+                writer.write('\n');
+                writer.flush();
+            } catch (IOException e) {
+                // the sink must never break the pump
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException ignored) {
+                    // every line was flushed already
+                }
+                writer = null;
+            }
+        }
+
+        private Writer open() throws IOException {
+            return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static class Slf4jLogSink implements LogSink {
+        private final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger("redis.embedded.output");
+
+        @Override
+        public void log(String source, boolean error, String line) {
+            if (error) {
+                logger.warn("{} {}", source, line);
+            } else {
+                logger.info("{} {}", source, line);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+package redis.embedded.metrics;
+
+/**
+ * The fields of {@code INFO} a {@link MetricsSampler} keeps, gauges or counters since the start of the instance.
+ */
+public enum Metric {
+    OPS_PER_SECOND("instantaneous_ops_per_sec", "redis.ops", "operations/s", false),
+    USED_MEMORY("used_memory", "redis.memory.used", "bytes", false),
+    CONNECTED_CLIENTS("connected_clients", "redis.clients.connected", "clients", false),
+    KEYSPACE_HITS("keyspace_hits", "redis.keyspace.hits", "hits", true),
+    KEYSPACE_MISSES("keyspace_misses", "redis.keyspace.misses", "misses", true),
+    EVICTED_KEYS("evicted_keys", "redis.keys.evicted", "keys", true),
+    INPUT_KBPS("instantaneous_input_kbps", "redis.net.input", "kilobytes/s", false),
+    OUTPUT_KBPS("instantaneous_output_kbps", "redis.net.output", "kilobytes/s", false),
+    REJECTED_CONNECTIONS("rejected_connections", "redis.connections.rejected", "connections", true);
+
+    private final String infoField;
+    private final String meterName;
+    private final String unit;
+    private final boolean counter;
+
+    Metric(String infoField, String meterName, String unit, boolean counter) {
+        this.infoField = infoField;
+        this.meterName = meterName;
+        this.unit = unit;
+        this.counter = counter;
+    }
+
+    /**
+     * The name of the field in the {@code INFO} reply.
+     */
+    public String infoField() {
+        return infoField;
+    }
+
+    /**
+     * The name of the meter published by the {@link MicrometerBridge}.
+     */
+    public String meterName() {
+        return meterName;
+    }
+
+    public String unit() {
+        return unit;
+    }
+
+    /**
+     * Whether the value only grows while the instance runs, see {@link MetricsSeries#rate(Metric)}.
+     */
+    public boolean isCounter() {
+        return counter;
+    }
+}
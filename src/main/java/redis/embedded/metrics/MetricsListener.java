@@ -0,0 +1,10 @@
+package redis.embedded.metrics;
+
+/**
+ * Receives every sample as it is taken, on the sampler thread.
+ */
+@FunctionalInterface
+public interface MetricsListener {
+
+    void onSample(String instance, MetricsSample sample);
+}
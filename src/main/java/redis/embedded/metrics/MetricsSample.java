@@ -0,0 +1,70 @@
+package redis.embedded.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The values of the {@link Metric}s of one instance at one time, the fields missing from its {@code INFO} (for example
+ * {@code used_memory} of a sentinel) are absent.
+ */
+public final class MetricsSample {
+    private final long timestampMillis;
+    private final Map<Metric, Double> values;
+
+    MetricsSample(long timestampMillis, Map<Metric, Double> values) {
+        this.timestampMillis = timestampMillis;
+        this.values = Collections.unmodifiableMap(new EnumMap<>(values));
+    }
+
+    /**
+     * Picks the metrics out of {@code INFO} replies, any number of sections.
+     */
+    static MetricsSample parse(long timestampMillis, String... infos) {
+        Map<Metric, Double> values = new EnumMap<>(Metric.class);
+        for (String info : infos) {
+            for (String line : info.split("\r?\n")) {
+                int colon = line.indexOf(':');
+                if (colon <= 0 || line.startsWith("#")) {
+                    continue;
+                }
+                String field = line.substring(0, colon);
+                for (Metric metric : Metric.values()) {
+                    if (metric.infoField().equals(field)) {
+                        try {
+                            values.put(metric, Double.parseDouble(line.substring(colon + 1).trim()));
+                        } catch (NumberFormatException e) {
+                            // not a number, left out
+                        }
+                    }
+                }
+            }
+        }
+        return new MetricsSample(timestampMillis, values);
+    }
+
+    public long timestampMillis() {
+        return timestampMillis;
+    }
+
+    /**
+     * The value of the metric, {@code NaN} if the instance does not report it.
+     */
+    public double get(Metric metric) {
+        Double value = values.get(metric);
+        return value != null ? value : Double.NaN;
+    }
+
+    public boolean has(Metric metric) {
+        return values.containsKey(metric);
+    }
+
+    public Map<Metric, Double> values() {
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSample[" + timestampMillis + " " + values + "]";
+    }
+}
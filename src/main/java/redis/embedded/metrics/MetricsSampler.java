@@ -0,0 +1,273 @@
+package redis.embedded.metrics;
+
+import redis.embedded.Redis;
+import redis.embedded.RedisCluster;
+import redis.embedded.RedisSentinel;
+import redis.embedded.RedisServer;
+import redis.embedded.RedisShardedCluster;
+import redis.embedded.exceptions.RedisCommandException;
+import redis.embedded.resp.RespClient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Polls {@code INFO} of every instance of a {@link Redis} on a background thread, and keeps a {@link MetricsSeries}
+ * per instance: every server and sentinel of a {@link RedisCluster}, every master and replica of a
+ * {@link RedisShardedCluster}, or the instance itself.
+ *
+ * <p>Each instance is sampled over one connection, with the {@code stats}, {@code memory} and {@code clients}
+ * sections pipelined. Stopped instances are skipped and reconnected once they run again.
+ *
+ * <pre>{@code
+ * try (MetricsSampler sampler = MetricsSampler.of(cluster).interval(Duration.ofMillis(500)).start()) {
+ *     runLoadTest();
+ *     sampler.series().forEach((instance, series) -> System.out.println(instance + " " + series.latest()));
+ * }
+ * }</pre>
+ */
+public class MetricsSampler implements RedisMetrics, Closeable {
+    public static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(1);
+    public static final int DEFAULT_CAPACITY = 3600;
+
+    private static final String[] SECTIONS = {"stats", "memory", "clients"};
+    private static final int MAX_TIMEOUT_MILLIS = 5000;
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final List<Redis> instances;
+    private final List<MetricsListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Map<String, MetricsSeries> series = Collections.emptyMap();
+    private Duration interval = DEFAULT_INTERVAL;
+    private int capacity = DEFAULT_CAPACITY;
+
+    private List<Target> targets = Collections.emptyList();
+    private ScheduledExecutorService executor;
+
+    private MetricsSampler(List<Redis> instances) {
+        this.instances = instances;
+    }
+
+    public static MetricsSampler of(Redis redis) {
+        List<Redis> instances = new ArrayList<>();
+        if (redis instanceof RedisCluster) {
+            instances.addAll(((RedisCluster) redis).servers());
+            instances.addAll(((RedisCluster) redis).sentinels());
+        } else if (redis instanceof RedisShardedCluster) {
+            instances.addAll(((RedisShardedCluster) redis).masters());
+            instances.addAll(((RedisShardedCluster) redis).replicas());
+        } else {
+            instances.add(redis);
+        }
+        return new MetricsSampler(instances);
+    }
+
+    /**
+     * How often {@code INFO} is polled, one second by default.
+     */
+    public MetricsSampler interval(Duration interval) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Invalid interval " + interval);
+        }
+        this.interval = interval;
+        return this;
+    }
+
+    /**
+     * How many samples each series keeps, an hour at the default interval. Must be set before the first sample.
+     */
+    public synchronized MetricsSampler capacity(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        }
+        if (!targets.isEmpty()) {
+            throw new IllegalStateException("The series are already created");
+        }
+        this.capacity = capacity;
+        return this;
+    }
+
+    /**
+     * Starts polling, the first sample is taken right away. After {@link #close()}, polling resumes into the same
+     * series, so meters bound to them keep reporting.
+     */
+    public synchronized MetricsSampler start() {
+        if (executor != null) {
+            throw new IllegalStateException("The sampler is already running");
+        }
+        if (targets.isEmpty()) {
+            createTargets();
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "embedded-redis-metrics-sampler-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::sampleNow, 0, interval.toNanos(), TimeUnit.NANOSECONDS);
+        return this;
+    }
+
+    /**
+     * Takes one sample of every running instance on the calling thread, for example the final numbers of a test.
+     * A failing instance or listener is reported and skipped, so that it does not stop the polling.
+     */
+    public synchronized void sampleNow() {
+        if (targets.isEmpty()) {
+            createTargets();
+        }
+        for (Target target : targets) {
+            MetricsSample sample;
+            try {
+                sample = target.sample();
+            } catch (RuntimeException e) {
+                target.disconnect();
+                e.printStackTrace();
+                continue;
+            }
+            if (sample != null) {
+                target.series.add(sample);
+                for (MetricsListener listener : listeners) {
+                    try {
+                        listener.onSample(target.series.instance(), sample);
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public Map<String, MetricsSeries> series() {
+        return series;
+    }
+
+    @Override
+    public void addListener(MetricsListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(MetricsListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Stops polling and closes the connections, the series are kept.
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService running;
+        synchronized (this) {
+            running = executor;
+            executor = null;
+        }
+        if (running != null) {
+            running.shutdown();
+            try {
+                running.awaitTermination(MAX_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            for (Target target : targets) {
+                target.disconnect();
+            }
+        }
+    }
+
+    // --------------------------------------------------------------------private methods
+
+    /**
+     * Creates the series once, on the first start or sample.
+     */
+    private void createTargets() {
+        Map<String, MetricsSeries> created = new LinkedHashMap<>();
+        List<Target> newTargets = new ArrayList<>();
+        for (Redis instance : instances) {
+            MetricsSeries instanceSeries = new MetricsSeries(instance.toString(), capacity);
+            created.put(instanceSeries.instance(), instanceSeries);
+            newTargets.add(new Target(instance, instanceSeries));
+        }
+        this.targets = newTargets;
+        this.series = Collections.unmodifiableMap(created);
+    }
+
+    private int timeoutMillis() {
+        return (int) Math.max(100, Math.min(MAX_TIMEOUT_MILLIS, interval.toMillis()));
+    }
+
+    private static String host(Redis redis) {
+        if (redis instanceof RedisServer) {
+            return ((RedisServer) redis).host();
+        }
+        if (redis instanceof RedisSentinel) {
+            return ((RedisSentinel) redis).host();
+        }
+        return "127.0.0.1";
+    }
+
+    /**
+     * One instance, with its connection kept between samples.
+     */
+    private final class Target {
+        private final Redis redis;
+        private final MetricsSeries series;
+        private RespClient client;
+        private int clientPort;
+
+        private Target(Redis redis, MetricsSeries series) {
+            this.redis = redis;
+            this.series = series;
+        }
+
+        /**
+         * The sample of the instance, {@code null} if it is not running or did not answer.
+         */
+        private MetricsSample sample() {
+            if (!redis.isActive() || redis.ports().isEmpty()) {
+                disconnect();
+                return null;
+            }
+            try {
+                int port = redis.ports().get(0);
+                if (client == null || clientPort != port) {
+                    disconnect();
+                    client = RespClient.connect(host(redis), port, timeoutMillis());
+                    clientPort = port;
+                }
+                for (String section : SECTIONS) {
+                    client.send("INFO", section);
+                }
+                client.flush();
+                String[] infos = new String[SECTIONS.length];
+                for (int i = 0; i < infos.length; i++) {
+                    infos[i] = String.valueOf(client.receive());
+                }
+                return MetricsSample.parse(System.currentTimeMillis(), infos);
+            } catch (IOException | RedisCommandException e) {
+                // stopping or restarting, reconnect on the next sample
+                disconnect();
+                return null;
+            }
+        }
+
+        private void disconnect() {
+            if (client != null) {
+                try {
+                    client.close();
+                } catch (IOException ignored) {
+                    // already closed by the server
+                }
+                client = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package redis.embedded.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The most recent samples of one instance, oldest first, up to a fixed capacity. A series is thread-safe.
+ */
+public final class MetricsSeries {
+    private final String instance;
+    private final MetricsSample[] ring;
+    private int next = 0;
+    private int size = 0;
+
+    MetricsSeries(String instance, int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        }
+        this.instance = instance;
+        this.ring = new MetricsSample[capacity];
+    }
+
+    synchronized void add(MetricsSample sample) {
+        ring[next] = sample;
+        next = (next + 1) % ring.length;
+        size = Math.min(size + 1, ring.length);
+    }
+
+    /**
+     * The name of the instance, for example {@code RedisServer[6379]}.
+     */
+    public String instance() {
+        return instance;
+    }
+
+    public synchronized List<MetricsSample> samples() {
+        List<MetricsSample> samples = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            samples.add(sampleAt(i));
+        }
+        return samples;
+    }
+
+    /**
+     * The last sample, {@code null} before the first one.
+     */
+    public synchronized MetricsSample latest() {
+        return size > 0 ? sampleAt(size - 1) : null;
+    }
+
+    /**
+     * The values of the metric over time, {@code NaN} where it was not reported.
+     */
+    public synchronized double[] values(Metric metric) {
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = sampleAt(i).get(metric);
+        }
+        return values;
+    }
+
+    /**
+     * The change per second of the metric between the last two samples, for example the hits per second;
+     * {@code NaN} before the second sample.
+     */
+    public synchronized double rate(Metric metric) {
+        if (size < 2) {
+            return Double.NaN;
+        }
+        MetricsSample previous = sampleAt(size - 2);
+        MetricsSample last = sampleAt(size - 1);
+        long millis = last.timestampMillis() - previous.timestampMillis();
+        return millis > 0 ? (last.get(metric) - previous.get(metric)) * 1000 / millis : Double.NaN;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSeries[" + instance + ", " + size() + " samples]";
+    }
+
+    // --------------------------------------------------------------------private methods
+
+    private MetricsSample sampleAt(int index) {
+        return ring[(next - size + index + ring.length) % ring.length];
+    }
+}
@@ -0,0 +1,55 @@
+package redis.embedded.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Map;
+
+/**
+ * Publishes the latest sample of every instance of a {@link RedisMetrics} as Micrometer meters, named after
+ * {@link Metric#meterName()} and tagged with the {@code instance}. Needs {@code io.micrometer:micrometer-core}, which
+ * is an optional dependency. Bind it once the sampler is started, when its series exist.
+ *
+ * <pre>{@code
+ * new MicrometerBridge(sampler).bindTo(meterRegistry);
+ * }</pre>
+ */
+public class MicrometerBridge implements MeterBinder {
+    public static final String INSTANCE_TAG = "instance";
+
+    private final RedisMetrics metrics;
+
+    public MicrometerBridge(RedisMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Map.Entry<String, MetricsSeries> entry : metrics.series().entrySet()) {
+            for (Metric metric : Metric.values()) {
+                if (metric.isCounter()) {
+                    FunctionCounter.builder(metric.meterName(), entry.getValue(), series -> latest(series, metric, 0))
+                        .tag(INSTANCE_TAG, entry.getKey())
+                        .baseUnit(metric.unit())
+                        .description("INFO " + metric.infoField())
+                        .register(registry);
+                } else {
+                    Gauge.builder(metric.meterName(), entry.getValue(), series -> latest(series, metric, Double.NaN))
+                        .tag(INSTANCE_TAG, entry.getKey())
+                        .baseUnit(metric.unit())
+                        .description("INFO " + metric.infoField())
+                        .register(registry);
+                }
+            }
+        }
+    }
+
+    // --------------------------------------------------------------------private methods
+
+    private static double latest(MetricsSeries series, Metric metric, double absent) {
+        MetricsSample sample = series.latest();
+        return sample != null && sample.has(metric) ? sample.get(metric) : absent;
+    }
+}
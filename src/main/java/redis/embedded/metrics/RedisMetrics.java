@@ -0,0 +1,19 @@
+package redis.embedded.metrics;
+
+import java.util.Map;
+
+/**
+ * Server-side metrics of running instances, as one {@link MetricsSeries} per instance. Implemented by the
+ * {@link MetricsSampler}, and published to Micrometer by the {@link MicrometerBridge}.
+ */
+public interface RedisMetrics {
+
+    /**
+     * The series of every instance, by instance name.
+     */
+    Map<String, MetricsSeries> series();
+
+    void addListener(MetricsListener listener);
+
+    void removeListener(MetricsListener listener);
+}
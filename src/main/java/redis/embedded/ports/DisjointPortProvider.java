@@ -0,0 +1,208 @@
+package redis.embedded.ports;
+
+import redis.embedded.PortProvider;
+import redis.embedded.exceptions.RedisBuildingException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out ports from a block no other provider uses, neither in this JVM nor in any other JVM on the
+ * machine (for example a parallel Surefire fork).
+ *
+ * <p>The port range is split into blocks, a block belongs to the provider holding the lock on its lock file
+ * in {@code ${java.io.tmpdir}/embedded-redis-ports}. The lock is released by {@link #close()} or when the JVM
+ * exits. Every port is checked by binding it before it is returned.
+ *
+ * <p>The default range ends at 19999, so that ports 20000 to 29999 are left for the cluster bus ports
+ * ({@code port + 10000}) of native cluster nodes: the bus port of a port is then as private to the JVM as the
+ * port itself, and {@link #forClusterNodes()} also checks it before handing the port out.
+ */
+public class DisjointPortProvider implements PortProvider, Closeable {
+    public static final int DEFAULT_FIRST_PORT = 10000;
+    public static final int DEFAULT_BLOCK_SIZE = 100;
+    public static final int DEFAULT_BLOCK_COUNT = 100;
+    public static final int CLUSTER_BUS_PORT_OFFSET = 10000;
+
+    private static final Path LOCK_DIR = Paths.get(System.getProperty("java.io.tmpdir"), "embedded-redis-ports");
+
+    /**
+     * Lock files held by any provider of this JVM. They are never opened twice, since closing a second channel
+     * of a file releases the lock of the first one on POSIX systems.
+     */
+    private static final Set<Path> CLAIMED = ConcurrentHashMap.newKeySet();
+
+    private final int firstPort;
+    private final int blockSize;
+    private final int blockCount;
+    private final int busPortOffset;
+    private final List<FileLock> locks = new ArrayList<>();
+    private final List<Path> claimed = new ArrayList<>();
+
+    private int block = -1;
+    private int offset;
+
+    /**
+     * Ports 10000 to 19999 in blocks of 100, below the usual ephemeral range of the OS.
+     */
+    public DisjointPortProvider() {
+        this(DEFAULT_FIRST_PORT, DEFAULT_BLOCK_SIZE, DEFAULT_BLOCK_COUNT);
+    }
+
+    public DisjointPortProvider(int firstPort, int blockSize, int blockCount) {
+        this(firstPort, blockSize, blockCount, 0);
+    }
+
+    DisjointPortProvider(int firstPort, int blockSize, int blockCount, int busPortOffset) {
+        if (firstPort < 1 || blockSize < 1 || blockCount < 1
+            || firstPort + (long) blockSize * blockCount + busPortOffset > 65536) {
+            throw new IllegalArgumentException("Invalid port range " + firstPort + " + " + blockCount + " x " + blockSize);
+        }
+        this.firstPort = firstPort;
+        this.blockSize = blockSize;
+        this.blockCount = blockCount;
+        this.busPortOffset = busPortOffset;
+    }
+
+    /**
+     * The default range, handing out only ports whose cluster bus port is free as well.
+     */
+    public static DisjointPortProvider forClusterNodes() {
+        return new DisjointPortProvider(DEFAULT_FIRST_PORT, DEFAULT_BLOCK_SIZE, DEFAULT_BLOCK_COUNT, CLUSTER_BUS_PORT_OFFSET);
+    }
+
+    /**
+     * The provider of the default range shared by this JVM, so that building many instances does not claim a
+     * new block each time.
+     */
+    public static DisjointPortProvider shared() {
+        return Shared.PLAIN;
+    }
+
+    /**
+     * The {@link #forClusterNodes()} provider shared by this JVM.
+     */
+    public static DisjointPortProvider sharedForClusterNodes() {
+        return Shared.CLUSTER_NODES;
+    }
+
+    @Override
+    public synchronized int next() {
+        while (true) {
+            if (block < 0 || offset >= blockSize) {
+                claimBlock();
+            }
+            int port = firstPort + block * blockSize + offset++;
+            if (isFree(port) && (busPortOffset == 0 || isFree(port + busPortOffset))) {
+                return port;
+            }
+        }
+    }
+
+    /**
+     * Releases the claimed blocks, the ports already handed out are not tracked any further.
+     */
+    @Override
+    public synchronized void close() {
+        for (FileLock lock : locks) {
+            try {
+                lock.channel().close();
+            } catch (IOException ignored) {
+                // released with the JVM anyway
+            }
+        }
+        CLAIMED.removeAll(claimed);
+        claimed.clear();
+        locks.clear();
+        block = -1;
+    }
+
+    // --------------------------------------------------------------------private methods
+
+    private void claimBlock() {
+        try {
+            Files.createDirectories(LOCK_DIR);
+        } catch (IOException e) {
+            throw new RedisBuildingException("Could not create port lock directory " + LOCK_DIR, e);
+        }
+        // start at a different block in every process, so forks rarely contend for the same lock file
+        int start = Math.floorMod(processId(), blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            int candidate = (start + i) % blockCount;
+            if (tryLock(candidate)) {
+                block = candidate;
+                offset = 0;
+                return;
+            }
+        }
+        throw new RedisBuildingException("Run out of Redis ports, all " + blockCount + " port blocks are in use");
+    }
+
+    private boolean tryLock(int candidate) {
+        Path file = LOCK_DIR.resolve("ports-" + (firstPort + candidate * blockSize) + "-" + blockSize + ".lock");
+        if (!CLAIMED.add(file)) {
+            return false;
+        }
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock = channel.tryLock();
+            if (lock != null) {
+                locks.add(lock);
+                claimed.add(file);
+                return true;
+            }
+        } catch (IOException e) {
+            // not lockable, try the next block
+        }
+        CLAIMED.remove(file);
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // nothing to release
+            }
+        }
+        return false;
+    }
+
+    private static boolean isFree(int port) {
+        try (ServerSocket socket = new ServerSocket()) {
+            socket.setReuseAddress(false);
+            socket.bind(new InetSocketAddress(port));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static int processId() {
+        String name = ManagementFactory.getRuntimeMXBean().getName();
+        try {
+            return Integer.parseInt(name.substring(0, name.indexOf('@')));
+        } catch (RuntimeException e) {
+            return name.hashCode();
+        }
+    }
+
+    /**
+     * Created on first use only, so that no block is claimed by a JVM which never asks for one.
+     */
+    private static final class Shared {
+        private static final DisjointPortProvider PLAIN = new DisjointPortProvider();
+        private static final DisjointPortProvider CLUSTER_NODES = forClusterNodes();
+    }
+}
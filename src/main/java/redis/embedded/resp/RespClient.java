@@ -0,0 +1,466 @@
+package redis.embedded.resp;
+
+import redis.embedded.exceptions.RedisCommandException;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A small RESP2/RESP3 client for the instances this library starts, without any dependency.
+ *
+ * <p>Commands are encoded into a reusable direct buffer and written to a non-blocking {@link SocketChannel},
+ * replies are parsed from a second reusable buffer. {@link #send(String...)} only buffers a command, so any
+ * number of commands can be pipelined before {@link #flush()} and the matching {@link #receive()} calls.
+ *
+ * <p>Replies are mapped to {@code String} (simple, bulk and verbatim strings), {@code Long} (integers),
+ * {@code Double}, {@code Boolean}, {@code BigInteger}, {@code List<Object>} (arrays and pushes),
+ * {@code Set<Object>}, {@code Map<Object, Object>} or {@code null}. Error replies are thrown as
+ * {@link RedisCommandException}, after the whole reply has been read; errors nested in an array
+ * (for example in the reply of {@code EXEC}) are returned as {@link RedisCommandException} elements.
+ *
+ * <p>A client is not thread-safe.
+ */
+public class RespClient implements Closeable {
+    public static final int DEFAULT_TIMEOUT_MILLIS = 10000;
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final String address;
+    private final SocketChannel channel;
+    private final Selector selector;
+    private final SelectionKey key;
+    private final int timeoutMillis;
+
+    private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private byte[] scratch = new byte[256];
+    private int pending = 0;
+
+    private RespClient(String host, int port, int timeoutMillis) throws IOException {
+        this.address = host + ":" + port;
+        this.timeoutMillis = timeoutMillis;
+        this.channel = SocketChannel.open();
+        Selector opened = null;
+        try {
+            opened = Selector.open();
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            this.selector = opened;
+            this.key = channel.register(selector, 0);
+            if (!channel.connect(new InetSocketAddress(host, port))) {
+                await(SelectionKey.OP_CONNECT, "connect");
+                channel.finishConnect();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            if (opened != null) {
+                opened.close();
+            }
+            throw e;
+        }
+        in.flip();
+    }
+
+    public static RespClient connect(String host, int port) throws IOException {
+        return new RespClient(host, port, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param timeoutMillis the timeout of the connect and of every single read or write
+     */
+    public static RespClient connect(String host, int port, int timeoutMillis) throws IOException {
+        return new RespClient(host, port, timeoutMillis);
+    }
+
+    /**
+     * Switches the connection to RESP3 with {@code HELLO 3}, and returns the server properties.
+     */
+    public Object hello(int protocol) throws IOException {
+        return execute("HELLO", Integer.toString(protocol));
+    }
+
+    /**
+     * Sends the command and waits for its reply.
+     */
+    public Object execute(String... args) throws IOException {
+        send(args);
+        flush();
+        return receive();
+    }
+
+    /**
+     * Sends all commands at once and returns their replies in order, error replies are returned as
+     * {@link RedisCommandException} elements instead of being thrown.
+     */
+    public List<Object> pipeline(List<String[]> commands) throws IOException {
+        for (String[] command : commands) {
+            send(command);
+        }
+        flush();
+        List<Object> replies = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            try {
+                replies.add(receive());
+            } catch (RedisCommandException e) {
+                replies.add(e);
+            }
+        }
+        return replies;
+    }
+
+    /**
+     * Encodes the command into the output buffer, the buffer is written when full or on {@link #flush()}.
+     */
+    public void send(String... args) throws IOException {
+        putByte('*');
+        putNumber(args.length);
+        for (String arg : args) {
+            putBulk(arg);
+        }
+        pending++;
+    }
+
+    /**
+     * Sends bytes already encoded in RESP, which must contain {@code commands} complete commands.
+     */
+    public void sendRaw(byte[] bytes, int offset, int length, int commands) throws IOException {
+        putBytes(bytes, offset, length);
+        pending += commands;
+    }
+
+    public void flush() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            if (channel.write(out) == 0) {
+                await(SelectionKey.OP_WRITE, "write");
+            }
+        }
+        out.clear();
+    }
+
+    /**
+     * Reads the reply of the oldest command sent and not received yet.
+     */
+    public Object receive() throws IOException {
+        if (pending > 0) {
+            pending--;
+        }
+        Object reply = read();
+        if (reply instanceof RedisCommandException) {
+            throw (RedisCommandException) reply;
+        }
+        return reply;
+    }
+
+    /**
+     * The number of commands sent whose replies were not received yet.
+     */
+    public int pending() {
+        return pending;
+    }
+
+    /**
+     * Whether a reply has started to arrive, so {@link #receive()} would not wait for the server. Never blocks.
+     */
+    public boolean replyAvailable() throws IOException {
+        if (in.hasRemaining()) {
+            return true;
+        }
+        in.clear();
+        try {
+            int n = channel.read(in);
+            if (n < 0) {
+                throw new EOFException("Connection closed by " + address);
+            }
+            return n > 0;
+        } finally {
+            in.flip();
+        }
+    }
+
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            selector.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RespClient[" + address + "]";
+    }
+
+    // --------------------------------------------------------------------private methods
+
+    private void putBulk(String arg) throws IOException {
+        final int length = arg.length();
+        boolean ascii = true;
+        for (int i = 0; i < length && ascii; i++) {
+            ascii = arg.charAt(i) < 0x80;
+        }
+        if (!ascii) {
+            byte[] bytes = arg.getBytes(StandardCharsets.UTF_8);
+            putByte('$');
+            putNumber(bytes.length);
+            putBytes(bytes, 0, bytes.length);
+            putBytes(CRLF, 0, 2);
+            return;
+        }
+        putByte('$');
+        putNumber(length);
+        ensure(Math.min(length + 2, BUFFER_SIZE));
+        for (int i = 0; i < length; i++) {
+            if (!out.hasRemaining()) {
+                ensure(1);
+            }
+            out.put((byte) arg.charAt(i));
+        }
+        putBytes(CRLF, 0, 2);
+    }
+
+    private void putNumber(long number) throws IOException {
+        ensure(22);
+        if (number < 0) {
+            out.put((byte) '-');
+            number = -number;
+        }
+        if (number < 10) {
+            out.put((byte) ('0' + number));
+        } else {
+            int start = out.position();
+            while (number > 0) {
+                out.put((byte) ('0' + number % 10));
+                number /= 10;
+            }
+            // digits were written in reverse order
+            for (int i = start, j = out.position() - 1; i < j; i++, j--) {
+                byte b = out.get(i);
+                out.put(i, out.get(j));
+                out.put(j, b);
+            }
+        }
+        out.put(CRLF);
+    }
+
+    private void putByte(char b) throws IOException {
+        ensure(1);
+        out.put((byte) b);
+    }
+
+    private void putBytes(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            ensure(1);
+            int n = Math.min(length, out.remaining());
+            out.put(bytes, offset, n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Makes room for {@code n} bytes, by writing out what is buffered.
+     */
+    private void ensure(int n) throws IOException {
+        if (out.remaining() < n) {
+            flush();
+        }
+    }
+
+    private Object read() throws IOException {
+        byte type = readByte();
+        switch (type) {
+            case '+':
+                return readString(readLineLength());
+            case '-':
+                return new RedisCommandException(readString(readLineLength()));
+            case ':':
+                return readLong();
+            case '$':
+                return readBulk();
+            case '*':
+            case '>':
+                return readArray();
+            case '_':
+                readLineLength();
+                return null;
+            case '#':
+                return readString(readLineLength()).equals("t");
+            case ',':
+                return parseDouble(readString(readLineLength()));
+            case '(':
+                return new BigInteger(readString(readLineLength()));
+            case '=': {
+                String verbatim = (String) readBulk();
+                // skip the format prefix, e.g. "txt:"
+                return verbatim != null && verbatim.length() >= 4 ? verbatim.substring(4) : verbatim;
+            }
+            case '!': {
+                String error = (String) readBulk();
+                return new RedisCommandException(error);
+            }
+            case '~':
+                return new LinkedHashSet<>(readArray());
+            case '%':
+                return readMap();
+            case '|':
+                // attributes describe the next reply, which is the actual reply
+                readMap();
+                return read();
+            default:
+                throw new IOException("Unexpected reply type '" + (char) type + "' from " + address);
+        }
+    }
+
+    private List<Object> readArray() throws IOException {
+        long count = readLong();
+        if (count < 0) {
+            return null;
+        }
+        List<Object> items = new ArrayList<>((int) count);
+        for (long i = 0; i < count; i++) {
+            items.add(read());
+        }
+        return items;
+    }
+
+    private Map<Object, Object> readMap() throws IOException {
+        long count = readLong();
+        Map<Object, Object> map = new LinkedHashMap<>((int) count * 2);
+        for (long i = 0; i < count; i++) {
+            map.put(read(), read());
+        }
+        return map;
+    }
+
+    private Object readBulk() throws IOException {
+        long length = readLong();
+        if (length < 0) {
+            return null;
+        }
+        if (length > Integer.MAX_VALUE - 2) {
+            throw new IOException("Bulk reply of " + length + " bytes is too large");
+        }
+        int n = (int) length;
+        if (scratch.length < n) {
+            scratch = new byte[Math.max(n, scratch.length * 2)];
+        }
+        int offset = 0;
+        while (offset < n) {
+            fill();
+            int chunk = Math.min(n - offset, in.remaining());
+            in.get(scratch, offset, chunk);
+            offset += chunk;
+        }
+        readByte();
+        readByte();
+        return new String(scratch, 0, n, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the rest of the line into the scratch buffer, and returns its length without the CRLF.
+     */
+    private int readLineLength() throws IOException {
+        int n = 0;
+        while (true) {
+            byte b = readByte();
+            if (b == '\r') {
+                readByte();
+                return n;
+            }
+            if (n == scratch.length) {
+                scratch = Arrays.copyOf(scratch, n * 2);
+            }
+            scratch[n++] = b;
+        }
+    }
+
+    private long readLong() throws IOException {
+        long value = 0;
+        boolean negative = false;
+        while (true) {
+            byte b = readByte();
+            if (b == '\r') {
+                readByte();
+                return negative ? -value : value;
+            }
+            if (b == '-') {
+                negative = true;
+            } else {
+                value = value * 10 + (b - '0');
+            }
+        }
+    }
+
+    private String readString(int length) {
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private byte readByte() throws IOException {
+        fill();
+        return in.get();
+    }
+
+    /**
+     * Makes sure at least one byte can be read.
+     */
+    private void fill() throws IOException {
+        if (in.hasRemaining()) {
+            return;
+        }
+        in.clear();
+        try {
+            while (true) {
+                int n = channel.read(in);
+                if (n > 0) {
+                    return;
+                }
+                if (n < 0) {
+                    throw new EOFException("Connection closed by " + address);
+                }
+                await(SelectionKey.OP_READ, "read");
+            }
+        } finally {
+            in.flip();
+        }
+    }
+
+    private void await(int op, String action) throws IOException {
+        key.interestOps(op);
+        try {
+            if (selector.select(timeoutMillis) == 0) {
+                throw new SocketTimeoutException("Could not " + action + " " + address + " within " + timeoutMillis + "ms");
+            }
+            selector.selectedKeys().clear();
+        } finally {
+            key.interestOps(0);
+        }
+    }
+
+    private static Double parseDouble(String value) {
+        switch (value) {
+            case "inf":
+                return Double.POSITIVE_INFINITY;
+            case "-inf":
+                return Double.NEGATIVE_INFINITY;
+            default:
+                return Double.parseDouble(value);
+        }
+    }
+}
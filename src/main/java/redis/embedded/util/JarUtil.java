@@ -1,18 +1,60 @@
 package redis.embedded.util;
 
+import com.google.common.hash.Hashing;
 import com.google.common.io.Resources;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class JarUtil {
 
+    /**
+     * System property overriding the directory of the extracted executables cache.
+     */
+    public static final String CACHE_DIR_PROPERTY = "embedded-redis.cache-dir";
+
+    private static final String LOCK_FILE = ".lock";
+
+    private static final Map<String, File> EXTRACTED_EXECUTABLES = new ConcurrentHashMap<>();
+
+    /**
+     * One monitor per cache directory: a JVM may not hold two locks on the same file, which happens when two
+     * resources with the same content are extracted concurrently.
+     */
+    private static final Map<Path, Object> DIRECTORY_MONITORS = new ConcurrentHashMap<>();
+
+    /**
+     * Extracts the executable into a content-addressed cache ({@code ~/.cache/embedded-redis/<sha256>/}),
+     * shared by every builder of this JVM and by every other JVM on the machine.
+     *
+     * <p>Falls back to a fresh temporary directory if the cache is not writable.
+     */
     public static File extractExecutableFromJar(String executable) throws IOException {
+        try {
+            File command = EXTRACTED_EXECUTABLES.computeIfAbsent(executable, path -> {
+                try {
+                    return extractToCache(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (command.canExecute()) {
+                return command;
+            }
+            EXTRACTED_EXECUTABLES.remove(executable, command);
+        } catch (UncheckedIOException e) {
+            // the cache is not usable, extract into a temporary directory as before
+        }
+
         File command = extractFileFromJar(executable);
         command.setExecutable(true);
-
         return command;
     }
 
@@ -27,4 +69,72 @@ public class JarUtil {
         file.deleteOnExit();
         return file;
     }
+
+    static void clearExtractedExecutables() {
+        EXTRACTED_EXECUTABLES.clear();
+    }
+
+    // --------------------------------------------------------------------private methods
+
+    private static File extractToCache(String path) throws IOException {
+        final byte[] content = Resources.toByteArray(Resources.getResource(path));
+        final String checksum = Hashing.sha256().hashBytes(content).toString();
+        final Path dir = cacheDir().resolve(checksum);
+        final Path target = dir.resolve(new File(path).getName());
+
+        if (isValid(target, checksum)) {
+            return target.toFile();
+        }
+
+        Files.createDirectories(dir);
+        synchronized (DIRECTORY_MONITORS.computeIfAbsent(dir.toAbsolutePath().normalize(), key -> new Object())) {
+            try (FileChannel lockChannel = FileChannel.open(dir.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = lockChannel.lock();
+                try {
+                    // another JVM or thread may have populated the cache while we were waiting for the lock
+                    if (!isValid(target, checksum)) {
+                        writeExecutable(dir, target, content);
+                    }
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+        return target.toFile();
+    }
+
+    private static void writeExecutable(Path dir, Path target, byte[] content) throws IOException {
+        Path tmp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmp, content);
+            if (!tmp.toFile().setExecutable(true)) {
+                throw new IOException("Could not make " + tmp + " executable");
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static boolean isValid(Path file, String checksum) throws IOException {
+        return Files.isRegularFile(file)
+            && file.toFile().canExecute()
+            && com.google.common.io.Files.asByteSource(file.toFile()).hash(Hashing.sha256()).toString().equals(checksum);
+    }
+
+    private static Path cacheDir() {
+        String dir = System.getProperty(CACHE_DIR_PROPERTY);
+        if (dir != null && !dir.isEmpty()) {
+            return Paths.get(dir);
+        }
+        String xdgCacheHome = System.getenv("XDG_CACHE_HOME");
+        if (xdgCacheHome != null && !xdgCacheHome.isEmpty()) {
+            return Paths.get(xdgCacheHome, "embedded-redis");
+        }
+        return Paths.get(System.getProperty("user.home"), ".cache", "embedded-redis");
+    }
 }
@@ -7,7 +7,33 @@ import java.io.InputStreamReader;
 
 public class OSDetector {
 
+    private static volatile OS os;
+    private static volatile Architecture architecture;
+
+    /**
+     * Returns the OS, detected once per JVM.
+     */
     public static OS getOS() {
+        if (os == null) {
+            os = detectOS();
+        }
+        return os;
+    }
+
+    /**
+     * Returns the architecture, detected once per JVM from {@code os.arch}, forking {@code uname -m} only
+     * if the JVM reports an architecture we do not recognize.
+     */
+    public static Architecture getArchitecture() {
+        if (architecture == null) {
+            architecture = detectArchitecture();
+        }
+        return architecture;
+    }
+
+    // --------------------------------------------------------------------private methods
+
+    private static OS detectOS() {
         String osName = System.getProperty("os.name").toLowerCase();
 
         if (osName.contains("win")) {
@@ -21,20 +47,45 @@ public class OSDetector {
         }
     }
 
-    public static Architecture getArchitecture() {
+    private static Architecture detectArchitecture() {
         OS os = getOS();
         switch (os) {
             case WINDOWS:
                 return getWindowsArchitecture();
             case UNIX:
-                return getUnixArchitecture();
             case MAC_OS_X:
-                return getMacOSXArchitecture();
+                Architecture arch = fromOsArch(System.getProperty("os.arch"));
+                if (arch != null) {
+                    return arch;
+                }
+                return os == OS.UNIX ? getUnixArchitecture() : getMacOSXArchitecture();
             default:
                 throw new OsDetectionException("Unrecognized OS: " + os);
         }
     }
 
+    static Architecture fromOsArch(String osArch) {
+        if (osArch == null) {
+            return null;
+        }
+        switch (osArch.toLowerCase()) {
+            case "amd64":
+            case "x86_64":
+                return Architecture.x86_64;
+            case "aarch64":
+            case "arm64":
+                return Architecture.arm64;
+            case "x86":
+            case "i386":
+            case "i486":
+            case "i586":
+            case "i686":
+                return Architecture.x86;
+            default:
+                return null;
+        }
+    }
+
     private static Architecture getWindowsArchitecture() {
         String arch = System.getenv("PROCESSOR_ARCHITECTURE");
         String wow64Arch = System.getenv("PROCESSOR_ARCHITEW6432");
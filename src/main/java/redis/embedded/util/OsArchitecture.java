@@ -17,10 +17,16 @@ public class OsArchitecture {
     private final OS os;
     private final Architecture arch;
     
+    private static volatile OsArchitecture detected;
+
+    /**
+     * Returns the OS and architecture of this machine, detected once per JVM.
+     */
     public static OsArchitecture detect() {
-        OS os = OSDetector.getOS();
-        Architecture arch = OSDetector.getArchitecture();
-        return new OsArchitecture(os, arch);
+        if (detected == null) {
+            detected = new OsArchitecture(OSDetector.getOS(), OSDetector.getArchitecture());
+        }
+        return detected;
     }
 
     public OsArchitecture(OS os, Architecture arch) {
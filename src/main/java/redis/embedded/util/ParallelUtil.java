@@ -0,0 +1,98 @@
+package redis.embedded.util;
+
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs an action against a group of nodes concurrently and waits for all of them (a barrier),
+ * collecting every per-node failure instead of stopping at the first one.
+ */
+public class ParallelUtil {
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "embedded-redis-parallel-" + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Runs the task for each item and waits until all of them completed.
+     *
+     * @param action        the action name, used in error messages
+     * @param items         the items
+     * @param task          the task
+     * @param timeoutMillis the total timeout, zero or negative means wait without limit
+     * @param <T>           the item type
+     * @throws EmbeddedRedisException if any task failed or did not complete in time,
+     *                                each node failure is attached as suppressed exception
+     */
+    public static <T> void forEach(String action, Collection<T> items, Consumer<T> task, long timeoutMillis) {
+        if (items.isEmpty()) {
+            return;
+        }
+        List<T> list = new ArrayList<>(items);
+        List<Future<?>> futures = new ArrayList<>(list.size());
+        for (T item : list) {
+            futures.add(EXECUTOR.submit(() -> task.accept(item)));
+        }
+
+        long deadline = timeoutMillis > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : 0;
+        List<Throwable> failures = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            Future<?> future = futures.get(i);
+            T item = list.get(i);
+            try {
+                if (deadline == 0) {
+                    future.get();
+                } else {
+                    future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                }
+            } catch (ExecutionException e) {
+                failures.add(failure(action, item, e.getCause()));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                failures.add(new EmbeddedRedisException("Failed to " + action + " " + item + " within " + timeoutMillis + "ms"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new EmbeddedRedisException("Interrupted while waiting to " + action + " redis instances", e);
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            throw aggregate(action, list.size(), failures);
+        }
+    }
+
+    /**
+     * Runs the task on the shared daemon threads of this library.
+     */
+    public static CompletableFuture<Void> runAsync(Runnable task) {
+        return CompletableFuture.runAsync(task, EXECUTOR);
+    }
+
+    // --------------------------------------------------------------------private methods
+
+    private static Throwable failure(String action, Object item, Throwable cause) {
+        return new EmbeddedRedisException("Failed to " + action + " " + item, cause);
+    }
+
+    private static EmbeddedRedisException aggregate(String action, int total, List<Throwable> failures) {
+        EmbeddedRedisException e = new EmbeddedRedisException(
+            "Failed to " + action + " " + failures.size() + " of " + total + " redis instances"
+        );
+        for (Throwable failure : failures) {
+            e.addSuppressed(failure);
+        }
+        return e;
+    }
+
+}
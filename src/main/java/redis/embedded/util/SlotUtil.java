@@ -0,0 +1,62 @@
+package redis.embedded.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The Redis Cluster hash slot of a key: CRC16 (XMODEM) of the key, or of its hash tag, modulo 16384.
+ */
+public class SlotUtil {
+
+    public static final int SLOT_COUNT = 16384;
+
+    private static final int[] CRC16_TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i << 8;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+            CRC16_TABLE[i] = crc & 0xFFFF;
+        }
+    }
+
+    public static int slot(String key) {
+        return slot(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static int slot(byte[] key) {
+        return slot(key, 0, key.length);
+    }
+
+    /**
+     * Only the part between the first <code>{</code> and the following <code>}</code> is hashed, if it is not empty.
+     */
+    public static int slot(byte[] key, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            if (key[i] == '{') {
+                for (int j = i + 1; j < end; j++) {
+                    if (key[j] == '}') {
+                        if (j > i + 1) {
+                            return crc16(key, i + 1, j) % SLOT_COUNT;
+                        }
+                        break;
+                    }
+                }
+                break;
+            }
+        }
+        return crc16(key, offset, end) % SLOT_COUNT;
+    }
+
+    // --------------------------------------------------------------------private methods
+
+    private static int crc16(byte[] bytes, int from, int to) {
+        int crc = 0;
+        for (int i = from; i < to; i++) {
+            crc = ((crc << 8) ^ CRC16_TABLE[((crc >>> 8) ^ bytes[i]) & 0xFF]) & 0xFFFF;
+        }
+        return crc;
+    }
+}
@@ -5,18 +5,35 @@ import org.junit.Before;
 import org.junit.Test;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisSentinelPool;
+import org.mockito.InOrder;
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.ports.DisjointPortProvider;
+import redis.embedded.ports.EphemeralPortProvider;
+import redis.embedded.resp.RespClient;
 import redis.embedded.util.JedisUtil;
 
 import java.io.Closeable;
+import java.io.File;
 import java.net.Inet4Address;
+import java.net.ServerSocket;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 public class RedisClusterTest {
@@ -84,6 +101,25 @@ public class RedisClusterTest {
         }
     }
 
+    @Test
+    public void startAsyncShouldStartEntireCluster() throws Exception {
+        //given
+        final List<Redis> sentinels = Arrays.asList(sentinel1, sentinel2);
+        final List<Redis> servers = Arrays.asList(master1, master2);
+        instance = new RedisCluster(sentinels, servers);
+
+        //when
+        instance.startAsync().get(10, TimeUnit.SECONDS);
+
+        //then
+        for(Redis s : sentinels) {
+            verify(s).start();
+        }
+        for(Redis s : servers) {
+            verify(s).start();
+        }
+    }
+
     @Test
     public void isActiveShouldCheckEntireClusterIfAllActive() throws Exception {
         //given
@@ -107,6 +143,98 @@ public class RedisClusterTest {
         }
     }
 
+    @Test
+    public void parallelStartShouldStartMastersBeforeSlavesBeforeSentinels() throws Exception {
+        //given
+        final List<Redis> sentinels = Arrays.asList(sentinel1, sentinel2);
+        final List<Redis> servers = Arrays.asList(master1, master2);
+        instance = new RedisCluster(sentinels, servers, Collections.singletonList(master1));
+        instance.parallel(true);
+
+        //when
+        instance.start();
+
+        //then
+        InOrder inOrder = inOrder(master1, master2, sentinel1);
+        inOrder.verify(master1).start();
+        inOrder.verify(master2).start();
+        inOrder.verify(sentinel1).start();
+        verify(sentinel2).start();
+    }
+
+    @Test
+    public void parallelStartShouldReportAllFailedNodes() throws Exception {
+        //given
+        willThrow(new EmbeddedRedisException("boom1")).given(master1).start();
+        willThrow(new EmbeddedRedisException("boom2")).given(master2).start();
+        final List<Redis> sentinels = Arrays.asList(sentinel1, sentinel2);
+        final List<Redis> servers = Arrays.asList(master1, master2);
+        instance = new RedisCluster(sentinels, servers);
+        instance.parallel(true);
+
+        //when
+        try {
+            instance.start();
+            fail("Expected start to fail");
+        } catch (EmbeddedRedisException e) {
+            //then
+            assertEquals(2, e.getSuppressed().length);
+        }
+        verify(sentinel1, never()).start();
+        verify(sentinel2, never()).start();
+    }
+
+    @Test
+    public void parallelStopShouldStopEntireClusterDespiteFailures() throws Exception {
+        //given
+        willThrow(new EmbeddedRedisException("boom")).given(sentinel1).stop();
+        final List<Redis> sentinels = Arrays.asList(sentinel1, sentinel2);
+        final List<Redis> servers = Arrays.asList(master1, master2);
+        instance = new RedisCluster(sentinels, servers);
+        instance.parallel(true);
+
+        //when
+        try {
+            instance.stop();
+            fail("Expected stop to fail");
+        } catch (EmbeddedRedisException e) {
+            //then
+            assertEquals(1, e.getSuppressed().length);
+        }
+        for(Redis s : servers) {
+            verify(s).stop();
+        }
+        verify(sentinel2).stop();
+    }
+
+    @Test
+    public void testSimpleOperationsAfterParallelRunWithThreeSentinelsThreeMastersOneSlavePerMasterEphemeralCluster() throws Exception {
+        //given
+        RedisCluster cluster = RedisCluster.builder()
+            .withRedisSentinelBuilder(sentinelBuilder)
+            .ephemeral()
+            .parallel()
+            .sentinelCount(3)
+            .quorumSize(2)
+            .replicationGroup("master1", 1)
+            .replicationGroup("master2", 1)
+            .replicationGroup("master3", 1)
+            .build();
+        cluster.start();
+        final Set<String> sentinelHosts = JedisUtil.sentinelHosts(cluster);
+
+        //when
+        JedisSentinelPool pool = null;
+        Jedis jedis = null;
+        try {
+            pool = new JedisSentinelPool("master2", sentinelHosts);
+            jedis = testPool(pool);
+        } finally {
+            closeQuietly(jedis, pool);
+            cluster.stop();
+        }
+    }
+
     @Test
     public void testSimpleOperationsAfterRunWithSingleMasterNoSlavesCluster() throws Exception {
         //given
@@ -293,6 +421,290 @@ public class RedisClusterTest {
         }
     }
 
+    @Test
+    public void clusterShouldMoveMasterWhosePortIsTaken() throws Exception {
+        //given
+        final String master = "master";
+        final int masterPort = new EphemeralPortProvider().next();
+        try (ServerSocket taken = new ServerSocket(masterPort)) {
+            final RedisCluster cluster = RedisCluster.builder()
+                .withRedisSentinelBuilder(sentinelBuilder)
+                .ephemeralSentinels()
+                .serverStartingPort(masterPort)
+                .replicationGroup(master, 1)
+                .build();
+
+            //when
+            cluster.start();
+
+            //then
+            JedisSentinelPool pool = null;
+            Jedis jedis = null;
+            try {
+                pool = new JedisSentinelPool(master, JedisUtil.sentinelHosts(cluster));
+                jedis = testPool(pool);
+                assertNotEquals(masterPort, pool.getCurrentHostMaster().getPort());
+                assertFalse(cluster.serverPorts().contains(masterPort));
+            } finally {
+                closeQuietly(jedis, pool);
+                cluster.stop();
+            }
+        }
+    }
+
+    @Test
+    public void clusterShouldExposeUnixSocketsOfServers() throws Exception {
+        //given
+        final RedisCluster cluster = RedisCluster.builder()
+            .withRedisSentinelBuilder(sentinelBuilder)
+            .ephemeral()
+            .unixSockets()
+            .replicationGroup("master", 1)
+            .build();
+
+        //when
+        cluster.start();
+
+        //then
+        try {
+            assertEquals(2, cluster.unixSockets().size());
+            for (String socket : cluster.unixSockets()) {
+                assertTrue(new File(socket).exists());
+            }
+        } finally {
+            cluster.stop();
+        }
+    }
+
+    @Test
+    public void startShouldWaitForSlavesToSync() throws Exception {
+        //given
+        final RedisCluster cluster = RedisCluster.builder()
+            .withRedisSentinelBuilder(sentinelBuilder)
+            .ephemeral()
+            .parallel()
+            .awaitReplication()
+            .awaitSentinels()
+            .replicationGroup("master", 2)
+            .build();
+
+        //when
+        cluster.start();
+
+        //then
+        try {
+            for (Integer port : cluster.serverPorts().subList(1, 3)) {
+                try (Jedis jedis = new Jedis("localhost", port)) {
+                    assertTrue(RedisCluster.isReplicationUp(jedis.info("replication")));
+                }
+            }
+        } finally {
+            cluster.stop();
+        }
+    }
+
+    @Test
+    public void replicationShouldBeUpOnlyWhenLinkedAndSynced() {
+        assertTrue(RedisCluster.isReplicationUp("# Replication\r\nrole:slave\r\nmaster_link_status:up\r\nmaster_sync_in_progress:0\r\n"));
+        assertFalse(RedisCluster.isReplicationUp("role:slave\r\nmaster_link_status:down\r\nmaster_sync_in_progress:0\r\n"));
+        assertFalse(RedisCluster.isReplicationUp("role:slave\r\nmaster_link_status:up\r\nmaster_sync_in_progress:1\r\n"));
+    }
+
+    @Test
+    public void startupReportShouldCoverTiersWaitsAndInstances() {
+        //given
+        final RedisCluster cluster = RedisCluster.builder()
+            .withRedisSentinelBuilder(sentinelBuilder)
+            .ephemeral()
+            .sentinelCount(1)
+            .awaitReplication()
+            .replicationGroup("master", 1)
+            .build();
+
+        //when
+        cluster.start();
+
+        //then
+        try {
+            StartupReport report = cluster.lastStartupReport();
+            assertEquals("cluster", report.role());
+            assertEquals(Sets.newHashSet(StartupReport.Phase.MASTERS, StartupReport.Phase.SLAVES,
+                StartupReport.Phase.REPLICATION, StartupReport.Phase.SENTINELS), report.phaseNanos().keySet());
+            assertEquals(3, report.instances().size());
+            Set<String> roles = Sets.newHashSet();
+            for (StartupReport instance : report.instances()) {
+                roles.add(instance.role());
+                assertTrue(instance.nanos(StartupReport.Phase.READY) > 0);
+            }
+            assertEquals(Sets.newHashSet("master", "slave", "sentinel"), roles);
+        } finally {
+            cluster.stop();
+        }
+    }
+
+    @Test
+    public void startShouldWaitForSentinelsToConverge() throws Exception {
+        //given
+        final RedisCluster cluster = RedisCluster.builder()
+            .withRedisSentinelBuilder(sentinelBuilder)
+            .ephemeral()
+            .parallel()
+            .sentinelCount(3)
+            .quorumSize(2)
+            .awaitReplication()
+            .awaitSentinels()
+            .replicationGroup("master", 1)
+            .build();
+
+        //when
+        cluster.start();
+
+        //then
+        try {
+            assertNotNull(cluster.sentinelConvergence());
+            for (Integer port : cluster.sentinelPorts()) {
+                try (RespClient client = RespClient.connect("localhost", port)) {
+                    assertTrue(RedisCluster.hasConverged(client.execute("SENTINEL", "MASTERS"), 2,
+                        Collections.singletonMap("master", 1)));
+                }
+            }
+        } finally {
+            cluster.stop();
+        }
+    }
+
+    @Test
+    public void sentinelsShouldConvergeOnlyWithAllPeersAndSlaves() {
+        Object masters = Collections.singletonList(Arrays.asList(
+            "name", "master", "num-slaves", "1", "num-other-sentinels", "2"));
+
+        assertTrue(RedisCluster.hasConverged(masters, 2, Collections.singletonMap("master", 1)));
+        assertFalse(RedisCluster.hasConverged(masters, 2, Collections.singletonMap("master", 2)));
+        assertFalse(RedisCluster.hasConverged(masters, 1, Collections.singletonMap("master", 1)));
+        assertFalse(RedisCluster.hasConverged(masters, 2, Collections.singletonMap("other", 0)));
+        assertTrue(RedisCluster.areSlavesKnown(Collections.singletonList(Arrays.asList("flags", "slave", "info-refresh", "120"))));
+        assertFalse(RedisCluster.areSlavesKnown(Collections.singletonList(Arrays.asList("flags", "slave", "info-refresh", "1760000000000"))));
+        assertFalse(RedisCluster.areSlavesKnown(Collections.singletonList(Arrays.asList("flags", "slave", "info-refresh", "0"))));
+        assertFalse(RedisCluster.areSlavesKnown(Collections.singletonList(Arrays.asList("flags", "s_down,slave,disconnected", "info-refresh", "120"))));
+    }
+
+    @Test
+    public void failoverShouldPromoteSlave() throws Exception {
+        //given
+        final RedisCluster cluster = RedisCluster.builder()
+            .withRedisSentinelBuilder(sentinelBuilder)
+            .ephemeral()
+            .fastFailover()
+            .awaitReplication()
+            .awaitSentinels()
+            .replicationGroup("master", 1)
+            .build();
+        cluster.start();
+
+        //when
+        try {
+            FailoverReport report = cluster.failover("master");
+
+            //then
+            assertEquals(cluster.serverPorts().get(0).intValue(), report.oldMasterPort());
+            assertEquals(cluster.serverPorts().get(1).intValue(), report.newMasterPort());
+            try (Jedis jedis = new Jedis("localhost", report.newMasterPort())) {
+                assertTrue(jedis.info("replication").contains("role:master"));
+            }
+            assertEquals(Collections.singletonList(cluster.servers().get(1)), cluster.masters());
+        } finally {
+            cluster.stop();
+        }
+    }
+
+    @Test
+    public void disjointPortsShouldNotRunOutOfBlocks() {
+        for (int i = 0; i <= DisjointPortProvider.DEFAULT_BLOCK_COUNT; i++) {
+            RedisCluster built = RedisCluster.builder().disjointPorts().sentinelCount(1)
+                .replicationGroup("master", 0).build();
+            assertEquals(2, built.ports().size());
+        }
+    }
+
+    @Test
+    public void fastFailoverShouldNotChangeSentinelBuilder() {
+        //given
+        final RedisSentinelBuilder builder = RedisSentinel.builder().downAfterMilliseconds(5000L);
+
+        //when
+        RedisCluster.builder()
+            .withRedisSentinelBuilder(builder)
+            .ephemeral()
+            .fastFailover()
+            .replicationGroup("master", 1)
+            .build();
+
+        //then
+        assertEquals(5000L, builder.downAfterMilliseconds());
+        assertEquals(180000L, builder.failoverTimeout());
+    }
+
+    @Test
+    public void restartAfterFailoverShouldKeepPromotedMaster() throws Exception {
+        //given
+        final RedisCluster cluster = RedisCluster.builder()
+            .withRedisSentinelBuilder(sentinelBuilder)
+            .ephemeral()
+            .fastFailover()
+            .awaitReplication()
+            .awaitSentinels()
+            .replicationGroup("master", 2)
+            .build();
+        cluster.start();
+
+        //when
+        try {
+            FailoverReport report = cluster.failover("master");
+            cluster.stop();
+            cluster.start();
+
+            //then
+            assertEquals(Collections.singletonList(report.newMasterPort()), cluster.masters().get(0).ports());
+            try (Jedis jedis = new Jedis("localhost", report.newMasterPort())) {
+                assertTrue(jedis.info("replication").contains("role:master"));
+                assertTrue(jedis.info("replication").contains("connected_slaves:2"));
+                assertEquals("OK", jedis.set("key", "value"));
+            }
+            try (Jedis jedis = new Jedis("localhost", report.oldMasterPort())) {
+                assertTrue(jedis.info("replication").contains("master_port:" + report.newMasterPort()));
+            }
+        } finally {
+            cluster.stop();
+        }
+    }
+
+    @Test
+    public void killMasterShouldFailOverToSlave() throws Exception {
+        //given
+        final RedisCluster cluster = RedisCluster.builder()
+            .withRedisSentinelBuilder(sentinelBuilder)
+            .ephemeral()
+            .fastFailover()
+            .awaitReplication()
+            .awaitSentinels()
+            .replicationGroup("master", 1)
+            .build();
+        cluster.start();
+
+        //when
+        try {
+            FailoverReport report = cluster.killMaster("master");
+
+            //then
+            assertEquals(cluster.serverPorts().get(1).intValue(), report.newMasterPort());
+            assertFalse(cluster.servers().get(0).isActive());
+            assertEquals(Collections.singletonList(report.newMasterPort()), cluster.masters().get(0).ports());
+            assertTrue(report.duration().toMillis() < 30000);
+        } finally {
+            cluster.stop();
+        }
+    }
+
     private Jedis testPool(JedisSentinelPool pool) {
         Jedis jedis;
         jedis = pool.getResource();
@@ -0,0 +1,48 @@
+package redis.embedded;
+
+import org.junit.Test;
+import redis.embedded.util.OS;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class RedisExecProviderTest {
+
+    @Test
+    public void getShouldResolveExecutableOnlyOnce() throws Exception {
+        //given
+        File executable = File.createTempFile("redis-server", ".exe");
+        executable.deleteOnExit();
+        RedisExecProvider provider = RedisExecProvider.defaultProvider();
+        for (OS os : OS.values()) {
+            provider.override(os, executable.getAbsolutePath());
+        }
+
+        //then
+        assertSame(provider.get(), provider.get());
+        assertEquals(executable.getAbsolutePath(), provider.get().getPath());
+    }
+
+    @Test
+    public void overrideShouldInvalidateResolvedExecutable() throws Exception {
+        //given
+        File first = File.createTempFile("redis-server", ".exe");
+        File second = File.createTempFile("redis-server", ".exe");
+        first.deleteOnExit();
+        second.deleteOnExit();
+        RedisExecProvider provider = RedisExecProvider.defaultProvider();
+        for (OS os : OS.values()) {
+            provider.override(os, first.getAbsolutePath());
+        }
+        assertEquals(first.getAbsolutePath(), provider.get().getPath());
+
+        //when
+        for (OS os : OS.values()) {
+            provider.override(os, second.getAbsolutePath());
+        }
+
+        //then
+        assertEquals(second.getAbsolutePath(), provider.get().getPath());
+    }
+}
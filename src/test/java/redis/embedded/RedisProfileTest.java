@@ -0,0 +1,117 @@
+package redis.embedded;
+
+import org.junit.After;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.embedded.exceptions.RedisBuildingException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RedisProfileTest {
+
+    private RedisServer redisServer;
+
+    @After
+    public void tearDown() {
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    public void laterProfileShouldWinWhenComposed() {
+        //given
+        RedisProfile profile = RedisProfile.inMemoryFast().and(RedisProfile.durableAof());
+
+        //then
+        assertEquals("in-memory-fast+durable-aof", profile.name());
+        assertEquals("yes", profile.directives().get("appendonly"));
+        assertEquals("everysec", profile.directives().get("appendfsync"));
+        assertEquals("yes", profile.directives().get("lazyfree-lazy-expire"));
+    }
+
+    @Test
+    public void configLinesShouldLeaveOutExplicitDirectives() {
+        //given
+        RedisProfile profile = RedisProfile.evictionLru("64mb").with("HZ", "50");
+
+        //when
+        List<String> lines = profile.configLines(new HashSet<>(Arrays.asList("maxmemory", "hz")));
+
+        //then
+        assertFalse(lines.contains("maxmemory 64mb"));
+        assertFalse(lines.contains("hz 50"));
+        assertTrue(lines.contains("maxmemory-policy allkeys-lru"));
+        assertEquals("maxmemory", RedisProfile.directiveOf("  MaxMemory 1gb"));
+    }
+
+    @Test
+    public void builtInProfilesShouldBeRejectedByOldServers() {
+        //given
+        RedisVersion old = RedisVersion.parse("3.2.12");
+        List<RedisProfile> profiles = Arrays.asList(RedisProfile.inMemoryFast(), RedisProfile.durableAof(),
+            RedisProfile.highConcurrency(1), RedisProfile.evictionLru("64mb"));
+
+        for (RedisProfile profile : profiles) {
+            //when
+            try {
+                profile.validate(old);
+                fail("Expected " + profile.name() + " to be rejected");
+            } catch (RedisBuildingException e) {
+                //then
+                assertTrue(e.getMessage(), e.getMessage().contains("not supported by redis 3.2.12"));
+            }
+        }
+    }
+
+    @Test
+    public void validateShouldRejectDirectivesOfNewerServers() {
+        //given
+        RedisProfile profile = RedisProfile.highConcurrency(2);
+
+        //when
+        profile.validate(RedisVersion.parse("6.2.7"));
+        try {
+            profile.validate(RedisVersion.parse("5.0.14"));
+            fail("Expected io-threads to be rejected");
+        } catch (RedisBuildingException e) {
+            //then
+            assertTrue(e.getMessage().contains("io-threads (since 6.0.0)"));
+        }
+        assertTrue(RedisProfile.inMemoryFast().configLines(Collections.emptySet()).contains("save \"\""));
+    }
+
+    @Test
+    public void versionShouldBeDetectedFromExecutable() throws Exception {
+        RedisVersion version = RedisVersion.detect(RedisExecProvider.defaultProvider().get());
+
+        assertTrue(version.compareTo(RedisVersion.parse("2.8.0")) > 0);
+    }
+
+    @Test
+    public void explicitSettingsShouldOverrideProfile() {
+        //given
+        redisServer = RedisServer.builder()
+            .port(6379)
+            .profile(RedisProfile.inMemoryFast())
+            .profile(RedisProfile.evictionLru("64mb"))
+            .setting("maxmemory-policy volatile-lru")
+            .build();
+
+        //when
+        redisServer.start();
+
+        //then
+        try (Jedis jedis = new Jedis("localhost", 6379)) {
+            assertEquals("volatile-lru", jedis.configGet("maxmemory-policy").get("maxmemory-policy"));
+            assertEquals(Long.toString(64 * 1024 * 1024), jedis.configGet("maxmemory").get("maxmemory"));
+            assertEquals("", jedis.configGet("save").get("save"));
+            assertEquals("no", jedis.configGet("appendonly").get("appendonly"));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package redis.embedded;
+
+import org.junit.After;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import static org.junit.Assert.*;
+
+public class RedisServerPoolTest {
+
+    private RedisServerPool pool;
+
+    @After
+    public void tearDown() {
+        if (pool != null) {
+            pool.stop();
+        }
+    }
+
+    @Test
+    public void leasedServerShouldBeCleanedWhenReturned() {
+        //given
+        pool = RedisServerPool.builder().size(1).build();
+        pool.start();
+
+        int port;
+        try (RedisServerPool.Lease lease = pool.lease(); Jedis jedis = new Jedis("localhost", lease.port())) {
+            port = lease.port();
+            jedis.set("abc", "1");
+            jedis.configSet("maxmemory-policy", "allkeys-lru");
+            jedis.scriptLoad("return 1");
+        }
+
+        //when
+        try (RedisServerPool.Lease lease = pool.lease(); Jedis jedis = new Jedis("localhost", lease.port())) {
+            //then
+            assertEquals(port, lease.port());
+            assertNull(jedis.get("abc"));
+            assertEquals(0L, jedis.dbSize());
+            assertEquals("noeviction", jedis.configGet("maxmemory-policy").get("maxmemory-policy"));
+        }
+    }
+
+    @Test
+    public void leaseShouldTimeOutWhenAllServersAreLeased() {
+        //given
+        pool = RedisServerPool.builder().size(1).build();
+        pool.start();
+
+        try (RedisServerPool.Lease ignored = pool.lease()) {
+            //when
+            pool.lease(100);
+            fail("expected the lease to time out");
+        } catch (EmbeddedRedisException e) {
+            //then
+            assertTrue(e.getMessage().contains("100ms"));
+        }
+    }
+
+    @Test
+    public void serverShutDownByTestShouldBeReplaced() {
+        //given
+        pool = RedisServerPool.builder().size(1).build();
+        pool.start();
+
+        try (RedisServerPool.Lease lease = pool.lease()) {
+            //when
+            lease.server().stop();
+        }
+
+        //then
+        try (RedisServerPool.Lease lease = pool.lease(); Jedis jedis = new Jedis("localhost", lease.port())) {
+            assertEquals("PONG", jedis.ping());
+        }
+        assertEquals(1, pool.ports().size());
+    }
+
+    @Test
+    public void stopShouldStopAllServers() {
+        //given
+        pool = RedisServerPool.builder().size(2).build();
+        pool.start();
+        RedisServerPool.Lease lease = pool.lease();
+
+        //when
+        pool.stop();
+
+        //then
+        assertFalse(pool.isActive());
+        assertFalse(lease.server().isActive());
+        assertTrue(pool.ports().isEmpty());
+    }
+}
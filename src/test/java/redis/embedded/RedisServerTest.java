@@ -4,14 +4,28 @@ import com.google.common.io.Resources;
 import org.junit.Test;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.embedded.exceptions.EmbeddedRedisException;
 import redis.embedded.exceptions.RedisBuildingException;
+import redis.embedded.ports.EphemeralPortProvider;
+import redis.embedded.ports.PredefinedPortProvider;
 import redis.embedded.util.Architecture;
 import redis.embedded.util.OS;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -126,6 +140,300 @@ public class RedisServerTest {
             .build();
     }
 
+    @Test(timeout = 5000L)
+    public void shouldFailFastWhenProcessExitsBeforeReady() {
+        redisServer = RedisServer.builder()
+            .port(6379)
+            .setting("no-such-directive yes")
+            .build();
+        try {
+            redisServer.start();
+            fail("Expected start to fail");
+        } catch (EmbeddedRedisException e) {
+            assertTrue(e.getMessage().contains("no-such-directive"));
+            assertFalse(redisServer.isActive());
+        }
+    }
+
+    @Test
+    public void shouldFailWhenAnotherRedisHoldsThePort() throws Exception {
+        int port = new EphemeralPortProvider().next();
+        Process foreign = startForeignRedis(port);
+        try {
+            redisServer = RedisServer.builder().port(port).build();
+            try {
+                redisServer.start();
+                fail("Expected start to fail");
+            } catch (EmbeddedRedisException e) {
+                assertTrue(e.getMessage(), e.getMessage().matches("(?s).*Address (already )?in use.*"));
+                assertFalse(redisServer.isActive());
+            }
+        } finally {
+            stopForeignRedis(foreign);
+        }
+    }
+
+    @Test
+    public void shouldKeepRecentOutput() throws InterruptedException {
+        redisServer = RedisServer.builder().port(6379).outputBufferSize(5).build();
+        redisServer.start();
+        try {
+            // the server may answer PING before the pump read its last lines
+            long deadline = System.currentTimeMillis() + 5000;
+            List<String> output = redisServer.recentOutput();
+            while (output.stream().noneMatch(line -> line.contains("eady to accept connections"))
+                && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+                output = redisServer.recentOutput();
+            }
+            assertEquals(5, output.size());
+            assertTrue(output.stream().anyMatch(line -> line.contains("eady to accept connections")));
+        } finally {
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    public void shouldRedirectOutputToFile() throws IOException {
+        File outputFile = File.createTempFile("embedded-redis-output", ".log");
+        outputFile.deleteOnExit();
+        redisServer = RedisServer.builder().port(6379).outputFile(outputFile).build();
+        redisServer.start();
+        try {
+            String output = new String(Files.readAllBytes(outputFile.toPath()), StandardCharsets.UTF_8);
+            assertTrue(output.contains("eady to accept connections"));
+            assertFalse(redisServer.recentOutput().isEmpty());
+        } finally {
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    public void shouldRetryOnNewPortWhenPortIsTaken() throws IOException {
+        try (ServerSocket taken = new ServerSocket(0)) {
+            int free = new EphemeralPortProvider().next();
+            redisServer = RedisServer.builder()
+                .portProvider(new PredefinedPortProvider(Arrays.asList(taken.getLocalPort(), free)))
+                .build();
+            redisServer.start();
+            try {
+                assertEquals(Collections.singletonList(free), redisServer.ports());
+                try (Jedis jedis = new Jedis("localhost", free)) {
+                    assertEquals("PONG", jedis.ping());
+                }
+            } finally {
+                redisServer.stop();
+            }
+        }
+    }
+
+    @Test
+    public void shouldRetryOnNewPortWhenAnotherRedisHoldsThePort() throws Exception {
+        int taken = new EphemeralPortProvider().next();
+        Process foreign = startForeignRedis(taken);
+        try {
+            int free = new EphemeralPortProvider().next();
+            redisServer = RedisServer.builder()
+                .portProvider(new PredefinedPortProvider(Arrays.asList(taken, free)))
+                .build();
+            redisServer.start();
+            try {
+                assertTrue(redisServer.isActive());
+                assertEquals(Collections.singletonList(free), redisServer.ports());
+                try (Jedis jedis = new Jedis("localhost", free)) {
+                    jedis.set("owner", "embedded");
+                }
+                try (Jedis jedis = new Jedis("localhost", taken)) {
+                    assertNull(jedis.get("owner"));
+                }
+            } finally {
+                redisServer.stop();
+            }
+        } finally {
+            stopForeignRedis(foreign);
+        }
+    }
+
+    @Test
+    public void shouldListenOnUnixSocketOnly() throws IOException {
+        File socket = new File(Files.createTempDirectory("embedded-redis").toFile(), "redis.sock");
+        redisServer = RedisServer.builder()
+            .port(0)
+            .unixSocket(socket.getAbsolutePath())
+            .unixSocketPerm(0700)
+            .build();
+        redisServer.start();
+        try {
+            assertTrue(redisServer.isActive());
+            assertTrue(socket.exists());
+            assertTrue(redisServer.ports().isEmpty());
+            assertEquals(Collections.singletonList(socket.getAbsolutePath()), redisServer.unixSockets());
+        } finally {
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    public void shouldListenOnUnixSocketAndPort() throws IOException {
+        File socket = new File(Files.createTempDirectory("embedded-redis").toFile(), "redis.sock");
+        redisServer = RedisServer.builder()
+            .port(6379)
+            .unixSocket(socket.getAbsolutePath())
+            .build();
+        redisServer.start();
+        try (Jedis jedis = new Jedis("localhost", 6379)) {
+            assertEquals(socket.getAbsolutePath(), jedis.configGet("unixsocket").get("unixsocket"));
+        } finally {
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    public void stopShouldShutDownWithoutSaving() throws IOException {
+        File dir = Files.createTempDirectory("embedded-redis").toFile();
+        redisServer = RedisServer.builder()
+            .port(6379)
+            .setting("dir " + dir.getAbsolutePath())
+            .setting("save 900 1")
+            .build();
+        redisServer.start();
+        try (Jedis jedis = new Jedis("localhost", 6379)) {
+            jedis.set("abc", "1");
+        }
+
+        redisServer.stop();
+
+        StopReport report = redisServer.lastStopReport();
+        assertEquals(StopReport.Phase.SHUTDOWN_NOSAVE, report.exitedIn());
+        assertFalse(report.phaseNanos().containsKey(StopReport.Phase.SIGTERM));
+        assertFalse(new File(dir, "dump.rdb").exists());
+    }
+
+    @Test
+    public void terminateStrategyShouldSaveOnStop() throws IOException {
+        File dir = Files.createTempDirectory("embedded-redis").toFile();
+        redisServer = RedisServer.builder()
+            .port(6379)
+            .setting("dir " + dir.getAbsolutePath())
+            .setting("save 900 1")
+            .stopStrategy(StopStrategy.TERMINATE)
+            .build();
+        redisServer.start();
+        try (Jedis jedis = new Jedis("localhost", 6379)) {
+            jedis.set("abc", "1");
+        }
+
+        redisServer.stop();
+
+        assertEquals(StopReport.Phase.SIGTERM, redisServer.lastStopReport().exitedIn());
+        assertTrue(new File(dir, "dump.rdb").exists());
+    }
+
+    @Test
+    public void serversShouldPersistIntoTheirOwnWorkingDirectories() {
+        RedisServer first = RedisServer.builder().port(6379).setting("save 900 1")
+            .stopStrategy(StopStrategy.TERMINATE).keepWorkingDirectory(true).build();
+        RedisServer second = RedisServer.builder().port(6380).setting("save 900 1")
+            .stopStrategy(StopStrategy.TERMINATE).keepWorkingDirectory(true).build();
+        first.start();
+        second.start();
+        try (Jedis jedis = new Jedis("localhost", 6379)) {
+            jedis.set("abc", "1");
+        }
+        try (Jedis jedis = new Jedis("localhost", 6380)) {
+            jedis.set("abc", "2");
+        }
+
+        first.stop();
+        second.stop();
+
+        assertNotEquals(first.workingDirectory(), second.workingDirectory());
+        assertTrue(new File(first.workingDirectory(), "dump.rdb").exists());
+        assertTrue(new File(second.workingDirectory(), "dump.rdb").exists());
+        for (File dir : Arrays.asList(first.workingDirectory(), second.workingDirectory())) {
+            new File(dir, "dump.rdb").delete();
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void workingDirectoryShouldBeDeletedOnStop() {
+        redisServer = RedisServer.builder().port(6379).workingDirectoryOnTmpfs().build();
+        redisServer.start();
+        File dir = redisServer.workingDirectory();
+        File expectedParent = WorkingDirectory.tmpfsOrTemp() != null
+            ? WorkingDirectory.TMPFS : new File(System.getProperty("java.io.tmpdir"));
+        assertEquals(expectedParent.getAbsoluteFile(), dir.getParentFile().getAbsoluteFile());
+        assertTrue(dir.isDirectory());
+
+        redisServer.stop();
+
+        assertFalse(dir.exists());
+        assertNull(redisServer.workingDirectory());
+    }
+
+    @Test
+    public void startupReportShouldTimeBuildAndStartPhases() {
+        //given
+        redisServer = RedisServer.builder().port(6379).build();
+        assertNull(redisServer.lastStartupReport());
+
+        //when
+        redisServer.start();
+
+        //then
+        try {
+            StartupReport report = redisServer.lastStartupReport();
+            assertEquals("master", report.role());
+            assertEquals(6379, report.port());
+            assertEquals(Arrays.asList(StartupReport.Phase.EXTRACT, StartupReport.Phase.CONFIGURE,
+                StartupReport.Phase.SPAWN, StartupReport.Phase.READY), new ArrayList<>(report.phaseNanos().keySet()));
+            assertTrue(report.nanos(StartupReport.Phase.READY) > 0);
+            assertEquals(0, report.nanos(StartupReport.Phase.REPLICATION));
+            assertTrue(report.instances().isEmpty());
+            long total = 0;
+            for (long nanos : report.phaseNanos().values()) {
+                total += nanos;
+            }
+            assertEquals(total, report.totalNanos());
+        } finally {
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    public void startAsyncShouldStartInBackground() throws Exception {
+        redisServer = RedisServer.builder().port(6379).build();
+        CompletableFuture<Void> started = redisServer.startAsync();
+        try {
+            started.get(10, TimeUnit.SECONDS);
+            assertTrue(redisServer.isActive());
+        } finally {
+            redisServer.stopAsync().get(10, TimeUnit.SECONDS);
+        }
+        assertFalse(redisServer.isActive());
+    }
+
+    @Test
+    public void startAsyncShouldFailWithStartException() throws Exception {
+        redisServer = RedisServer.builder().port(6379).setting("no-such-directive yes").build();
+        try {
+            redisServer.startAsync().get(10, TimeUnit.SECONDS);
+            fail("Expected start to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof EmbeddedRedisException);
+        }
+    }
+
+    @Test
+    public void connectableHostShouldResolveWildcardBindAddresses() {
+        assertEquals("127.0.0.1", AbstractRedisInstance.connectableHost("0.0.0.0"));
+        assertEquals("127.0.0.1", AbstractRedisInstance.connectableHost("* -::*"));
+        assertEquals("::1", AbstractRedisInstance.connectableHost("::"));
+        assertEquals("127.0.1.1", AbstractRedisInstance.connectableHost("127.0.1.1 ::1"));
+        assertEquals("127.0.0.1", AbstractRedisInstance.connectableHost(null));
+    }
+
     @Test
     public void testAwaitRedisServerReady() throws IOException {
         String readyPattern = RedisServer.builder().build().redisReadyPattern();
@@ -135,6 +443,36 @@ public class RedisServerTest {
         assertReadyPattern(loadResource("redis-6.x-standalone-startup-output.txt"), readyPattern);
     }
 
+    /**
+     * A redis-server this library does not manage, like one started by another fork of the build.
+     */
+    static Process startForeignRedis(int port) throws Exception {
+        File dir = Files.createTempDirectory("foreign-redis").toFile();
+        dir.deleteOnExit();
+        Process process = new ProcessBuilder(RedisExecProvider.defaultProvider().get().getAbsolutePath(),
+            "--port", Integer.toString(port), "--save", "", "--appendonly", "no")
+            .directory(dir)
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.appendTo(new File(dir, "redis.log")))
+            .start();
+        for (int i = 0; i < 100; i++) {
+            try (Jedis jedis = new Jedis("localhost", port)) {
+                if ("PONG".equals(jedis.ping())) {
+                    return process;
+                }
+            } catch (RuntimeException e) {
+                Thread.sleep(50);
+            }
+        }
+        stopForeignRedis(process);
+        throw new IllegalStateException("Foreign redis did not start on " + port);
+    }
+
+    static void stopForeignRedis(Process process) throws InterruptedException {
+        process.destroyForcibly();
+        process.waitFor(5, TimeUnit.SECONDS);
+    }
+
     private BufferedReader loadResource(String path) {
         InputStream resourceAsStream = getClass().getClassLoader().getResourceAsStream(path);
         return new BufferedReader(new InputStreamReader(resourceAsStream));
@@ -0,0 +1,107 @@
+package redis.embedded;
+
+import org.junit.After;
+import org.junit.Test;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.embedded.ports.DisjointPortProvider;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class RedisShardedClusterTest {
+
+    private RedisShardedCluster cluster;
+
+    @After
+    public void tearDown() {
+        if (cluster != null) {
+            cluster.stop();
+        }
+    }
+
+    @Test
+    public void slotsShouldBeSpreadEvenly() {
+        assertEquals(0, RedisShardedCluster.firstSlot(0, 3));
+        assertEquals(5461, RedisShardedCluster.firstSlot(1, 3));
+        assertEquals(10922, RedisShardedCluster.firstSlot(2, 3));
+        assertEquals(16384, RedisShardedCluster.firstSlot(3, 3));
+    }
+
+    @Test
+    public void disjointPortsShouldNotRunOutOfBlocks() {
+        for (int i = 0; i <= DisjointPortProvider.DEFAULT_BLOCK_COUNT; i++) {
+            RedisShardedCluster built = RedisShardedCluster.builder().disjointPorts().masters(1).build();
+            assertEquals(1, built.ports().size());
+        }
+    }
+
+    @Test
+    public void startShouldFormClusterWithReplicas() {
+        //given
+        cluster = RedisShardedCluster.builder().ephemeral().masters(3).replicasPerMaster(1).build();
+
+        //when
+        cluster.start();
+
+        //then
+        assertEquals(6, cluster.ports().size());
+        for (Integer port : cluster.ports()) {
+            try (Jedis jedis = new Jedis("localhost", port)) {
+                assertTrue(jedis.clusterInfo().contains("cluster_state:ok"));
+            }
+        }
+        for (Redis replica : cluster.replicas()) {
+            try (Jedis jedis = new Jedis("localhost", replica.ports().get(0))) {
+                assertTrue(jedis.info("replication").contains("role:slave"));
+            }
+        }
+    }
+
+    @Test
+    public void templateSettingsShouldReachEveryNode() {
+        //given
+        RedisServerBuilder template = RedisServer.builder().setting("maxmemory 64mb");
+        cluster = RedisShardedCluster.builder().withRedisServerBuilder(template).ephemeral()
+            .masters(3).replicasPerMaster(1).build();
+
+        //when
+        cluster.start();
+
+        //then
+        for (Integer port : cluster.ports()) {
+            try (Jedis jedis = new Jedis("localhost", port)) {
+                assertEquals("67108864", jedis.configGet("maxmemory").get("maxmemory"));
+                assertTrue(jedis.clusterInfo().contains("cluster_state:ok"));
+            }
+        }
+        assertEquals(Collections.singletonList("maxmemory 64mb"), template.settings());
+    }
+
+    @Test
+    public void clusterShouldServeKeysOfAllSlots() {
+        //given
+        cluster = RedisShardedCluster.builder().ephemeral().masters(3).build();
+        cluster.start();
+        Set<HostAndPort> nodes = new HashSet<>();
+        for (Integer port : cluster.masterPorts()) {
+            nodes.add(new HostAndPort("127.0.0.1", port));
+        }
+
+        //when
+        try (JedisCluster jedis = new JedisCluster(nodes)) {
+            for (int i = 0; i < 100; i++) {
+                jedis.set("key" + i, Integer.toString(i));
+            }
+
+            //then
+            for (int i = 0; i < 100; i++) {
+                assertEquals(Integer.toString(i), jedis.get("key" + i));
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package redis.embedded;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class ShutdownCoordinatorTest {
+
+    @Test
+    public void instancesShouldRegisterOnStartAndDeregisterOnStop() {
+        //given
+        final RedisServer server = RedisServer.builder().port(6379).build();
+
+        for (int i = 0; i < 3; i++) {
+            //when
+            server.start();
+
+            //then
+            assertTrue(ShutdownCoordinator.shared().live().contains(server));
+            assertTrue(ShutdownCoordinator.shared().isHookInstalled());
+
+            server.stop();
+            assertFalse(ShutdownCoordinator.shared().live().contains(server));
+        }
+    }
+
+    @Test
+    public void failedStartShouldDeregister() {
+        //given
+        final RedisServer server = RedisServer.builder().port(6379).setting("no-such-directive yes").build();
+
+        //when
+        try {
+            server.start();
+            fail("Expected start to fail");
+        } catch (RuntimeException e) {
+            //then
+            assertFalse(ShutdownCoordinator.shared().live().contains(server));
+        }
+    }
+
+    @Test(timeout = 5000L)
+    public void stopAllShouldStopConcurrentlyWithinDeadline() {
+        //given
+        final ShutdownCoordinator coordinator = new ShutdownCoordinator();
+        final Redis stuck = mock(Redis.class);
+        final Redis healthy = mock(Redis.class);
+        final CountDownLatch never = new CountDownLatch(1);
+        willAnswer(invocation -> {
+            never.await();
+            return null;
+        }).given(stuck).stop();
+        coordinator.register(stuck);
+        coordinator.register(healthy);
+
+        try {
+            //when
+            coordinator.stopAll(200);
+
+            //then
+            verify(healthy).stop();
+            verify(stuck).stop();
+        } finally {
+            coordinator.deregister(stuck);
+            coordinator.deregister(healthy);
+        }
+    }
+}
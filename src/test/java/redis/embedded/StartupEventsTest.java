@@ -0,0 +1,55 @@
+package redis.embedded;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StartupEventsTest {
+
+    @Test
+    public void startShouldEmitOneEventPerPhase() throws Exception {
+        //given
+        Path file = Files.createTempFile("startup", ".jfr");
+        RedisServer server;
+        try (Recording recording = new Recording()) {
+            recording.enable(StartupPhaseEvent.NAME);
+            recording.start();
+
+            //when
+            server = RedisServer.builder().port(6379).build();
+            server.start();
+            server.stop();
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        //then
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        Map<String, RecordedEvent> phases = new HashMap<>();
+        for (RecordedEvent event : events) {
+            if (StartupPhaseEvent.NAME.equals(event.getEventType().getName())) {
+                phases.put(event.getString("phase"), event);
+            }
+        }
+        assertEquals(server.lastStartupReport().phaseNanos().size(), phases.size());
+        for (StartupReport.Phase phase : server.lastStartupReport().phaseNanos().keySet()) {
+            RecordedEvent event = phases.get(phase.name());
+            assertEquals(6379, event.getInt("port"));
+            assertEquals("master", event.getString("role"));
+            assertEquals(server.toString(), event.getString("instance"));
+            assertTrue(event.getDuration().toNanos() > 0);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package redis.embedded.load;
+
+import org.junit.After;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.embedded.Redis;
+import redis.embedded.RedisServer;
+import redis.embedded.RedisShardedCluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BulkLoaderTest {
+
+    private Redis redis;
+
+    @After
+    public void tearDown() {
+        if (redis != null) {
+            redis.stop();
+        }
+    }
+
+    @Test
+    public void loadShouldWriteAllCommands() {
+        //given
+        redis = RedisServer.builder().port(6379).build();
+        redis.start();
+        List<String[]> commands = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            commands.add(new String[]{"HSET", "key" + i, "field", "value" + i});
+            commands.add(new String[]{"EXPIRE", "key" + i, "3600"});
+        }
+
+        //when
+        BulkLoadReport report = BulkLoader.to(redis).connections(4).pipelineDepth(100).load(commands);
+
+        //then
+        assertEquals(20000, report.commands());
+        assertEquals(10000, report.keys());
+        assertEquals(0, report.errors());
+        try (Jedis jedis = new Jedis("localhost", 6379)) {
+            assertEquals(10000, jedis.dbSize());
+            assertEquals("value42", jedis.hget("key42", "field"));
+        }
+    }
+
+    @Test
+    public void loadShouldSummarizeErrors() {
+        //given
+        redis = RedisServer.builder().port(6379).build();
+        redis.start();
+
+        //when
+        BulkLoadReport report = BulkLoader.to(redis).load(Arrays.asList(
+            new String[]{"LPUSH", "list", "a"},
+            new String[]{"GET", "list"},
+            new String[]{"NOSUCHCOMMAND", "x"},
+            new String[]{"SET", "key", "value"}
+        ));
+
+        //then
+        assertEquals(4, report.commands());
+        assertEquals(2, report.errors());
+        assertEquals(Long.valueOf(1), report.errorsByType().get("WRONGTYPE"));
+        assertEquals(Long.valueOf(1), report.errorsByType().get("ERR"));
+        assertEquals(2, report.errorSamples().size());
+    }
+
+    @Test
+    public void loadShouldReadTextAndRespInput() throws Exception {
+        //given
+        redis = RedisServer.builder().port(6379).build();
+        redis.start();
+        File text = Files.createTempFile("bulk", ".txt").toFile();
+        text.deleteOnExit();
+        Files.write(text.toPath(), Arrays.asList("# comment", "SET \"a key\" \"a\\nvalue\"", "", "SET b 'x y'"), StandardCharsets.UTF_8);
+        byte[] resp = "*3\r\n$3\r\nSET\r\n$1\r\nc\r\n$5\r\nhello\r\n*2\r\n$4\r\nINCR\r\n$7\r\ncounter\r\n".getBytes(StandardCharsets.UTF_8);
+
+        //when
+        BulkLoadReport fromText = BulkLoader.to(redis).load(text);
+        BulkLoadReport fromResp = BulkLoader.to(redis).loadResp(new ByteArrayInputStream(resp));
+
+        //then
+        assertEquals(2, fromText.commands());
+        assertEquals(2, fromResp.commands());
+        try (Jedis jedis = new Jedis("localhost", 6379)) {
+            assertEquals("a\nvalue", jedis.get("a key"));
+            assertEquals("x y", jedis.get("b"));
+            assertEquals("hello", jedis.get("c"));
+            assertEquals("1", jedis.get("counter"));
+        }
+    }
+
+    @Test
+    public void loadShouldRouteBySlotInShardedCluster() {
+        //given
+        RedisShardedCluster cluster = RedisShardedCluster.builder().ephemeral().masters(3).build();
+        redis = cluster;
+        cluster.start();
+        List<String[]> commands = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            commands.add(new String[]{"SET", "key" + i, Integer.toString(i)});
+        }
+
+        //when
+        BulkLoadReport report = BulkLoader.to(cluster).load(commands);
+
+        //then
+        assertEquals(0, report.errors());
+        long total = 0;
+        for (Integer port : cluster.masterPorts()) {
+            try (Jedis jedis = new Jedis("localhost", port)) {
+                long size = jedis.dbSize();
+                assertTrue(size > 0);
+                total += size;
+            }
+        }
+        assertEquals(3000, total);
+    }
+
+    @Test
+    public void splitArgsShouldHonourQuotes() {
+        assertArrayEquals(new String[]{"SET", "a b", "c\"d", "e f"}, BulkLoader.splitArgs("SET  \"a b\" \"c\\\"d\" 'e f'"));
+        assertArrayEquals(new String[]{"PING"}, BulkLoader.splitArgs("PING"));
+    }
+}
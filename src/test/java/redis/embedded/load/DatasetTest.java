@@ -0,0 +1,115 @@
+package redis.embedded.load;
+
+import org.junit.After;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.embedded.Redis;
+import redis.embedded.RedisServer;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class DatasetTest {
+
+    private Redis redis;
+
+    @After
+    public void tearDown() {
+        if (redis != null) {
+            redis.stop();
+        }
+    }
+
+    @Test
+    public void sameSeedShouldGenerateSameCommands() {
+        //given
+        DatasetBuilder builder = Dataset.builder().keyCount(500)
+            .valueSizes(Histogram.uniform(1, 64))
+            .type(DataType.STRING, 1).type(DataType.HASH, 1).type(DataType.ZSET, 1).type(DataType.STREAM, 1)
+            .ttl(0.5, Histogram.uniform(10, 100));
+
+        //when
+        List<String[]> first = toList(builder.seed(7).build().commands());
+        List<String[]> second = toList(builder.seed(7).build().commands());
+        List<String[]> other = toList(builder.seed(8).build().commands());
+
+        //then
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertArrayEquals(first.get(i), second.get(i));
+        }
+        assertFalse(Arrays.deepEquals(first.toArray(), other.toArray()));
+    }
+
+    @Test
+    public void zipfShouldFavourFirstKeys() {
+        //given
+        Dataset uniform = Dataset.builder().keyCount(10000).build();
+        Dataset zipf = Dataset.builder().keyCount(10000).keyPopularity(KeyPopularity.zipf(0.99)).build();
+        SplittableRandom random = new SplittableRandom(1);
+
+        //when
+        int uniformHits = 0, zipfHits = 0;
+        for (int i = 0; i < 100000; i++) {
+            uniformHits += uniform.randomKey(random).equals(uniform.key(0)) ? 1 : 0;
+            zipfHits += zipf.randomKey(random).equals(zipf.key(0)) ? 1 : 0;
+        }
+
+        //then
+        assertTrue(uniformHits < 50);
+        assertTrue("zipf hits " + zipfHits, zipfHits > 5000);
+    }
+
+    @Test
+    public void histogramShouldStayWithinRanges() {
+        //given
+        Histogram histogram = Histogram.of(10, 20, 0.9).and(1000, 1000, 0.1);
+        SplittableRandom random = new SplittableRandom(3);
+
+        //when
+        int large = 0;
+        for (int i = 0; i < 10000; i++) {
+            int value = histogram.sample(random);
+
+            //then
+            assertTrue(value >= 10 && value <= 20 || value == 1000);
+            large += value == 1000 ? 1 : 0;
+        }
+        assertTrue(large > 800 && large < 1200);
+    }
+
+    @Test
+    public void loadIntoShouldWriteEveryKeyWithItsType() {
+        //given
+        redis = RedisServer.builder().port(6379).build();
+        redis.start();
+        Dataset dataset = Dataset.builder().keyCount(2000).elementsPerKey(Histogram.uniform(1, 5))
+            .type(DataType.STRING, 1).type(DataType.HASH, 1).type(DataType.ZSET, 1).type(DataType.STREAM, 1)
+            .ttl(1.0, Histogram.uniform(600, 1200))
+            .build();
+
+        //when
+        BulkLoadReport report = dataset.loadInto(redis);
+
+        //then
+        assertEquals(0, report.errors());
+        assertEquals(2000, report.keys());
+        try (Jedis jedis = new Jedis("localhost", 6379)) {
+            assertEquals(2000, jedis.dbSize());
+            Set<String> types = new HashSet<>();
+            for (int i = 0; i < 100; i++) {
+                types.add(jedis.type(dataset.key(i)));
+                long ttl = jedis.ttl(dataset.key(i));
+                assertTrue(ttl > 0 && ttl <= 1200);
+            }
+            assertEquals(new HashSet<>(Arrays.asList("string", "hash", "zset", "stream")), types);
+        }
+    }
+
+    private static List<String[]> toList(Iterator<String[]> commands) {
+        List<String[]> list = new ArrayList<>();
+        commands.forEachRemaining(list::add);
+        return list;
+    }
+}
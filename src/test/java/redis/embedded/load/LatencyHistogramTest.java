@@ -0,0 +1,68 @@
+package redis.embedded.load;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void percentilesShouldBeWithinBucketPrecision() {
+        //given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        //when
+        for (long i = 1; i <= 100000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        //then
+        assertEquals(100000, histogram.count());
+        assertEquals(1000, histogram.min());
+        assertEquals(100000000, histogram.max());
+        assertEquals(50000500, histogram.mean(), 1);
+        assertEquals(50000000, histogram.percentile(50), 50000000 * 0.016);
+        assertEquals(99000000, histogram.percentile(99), 99000000 * 0.016);
+        assertEquals(100000000, histogram.percentile(100));
+    }
+
+    @Test
+    public void smallValuesShouldBeExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(3);
+        histogram.record(7);
+        histogram.record(127);
+
+        assertEquals(3, histogram.percentile(10));
+        assertEquals(7, histogram.percentile(50));
+        assertEquals(127, histogram.percentile(99));
+    }
+
+    @Test
+    public void bucketsShouldCoverEveryValue() {
+        for (long value : new long[]{0, 127, 128, 129, 1000, 65535, 65536, 1L << 40, Long.MAX_VALUE}) {
+            long highest = LatencyHistogram.highestOf(LatencyHistogram.indexOf(value));
+            assertTrue(value + " <= " + highest, value <= highest);
+            assertTrue(value + " within 1.6% of " + highest, highest - value <= value / 64);
+        }
+    }
+
+    @Test
+    public void addShouldMergeHistograms() {
+        //given
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record(10);
+        second.record(1000);
+        second.record(20);
+
+        //when
+        first.add(second);
+
+        //then
+        assertEquals(3, first.count());
+        assertEquals(10, first.min());
+        assertEquals(1000, first.max());
+        assertEquals(20, first.percentile(50));
+    }
+}
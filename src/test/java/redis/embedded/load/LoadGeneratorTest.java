@@ -0,0 +1,114 @@
+package redis.embedded.load;
+
+import org.junit.After;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.embedded.Redis;
+import redis.embedded.RedisServer;
+import redis.embedded.RedisShardedCluster;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LoadGeneratorTest {
+
+    private Redis redis;
+
+    @After
+    public void tearDown() {
+        if (redis != null) {
+            redis.stop();
+        }
+    }
+
+    @Test
+    public void closedLoopShouldReportLatencyAndThroughput() {
+        //given
+        redis = RedisServer.builder().port(6379).build();
+        redis.start();
+        Dataset dataset = Dataset.builder().keyCount(1000).valueSizes(Histogram.uniform(10, 100)).build();
+        dataset.loadInto(redis);
+
+        //when
+        LoadReport report = LoadGenerator.to(redis).dataset(dataset).readRatio(0.5)
+            .connections(2).pipelineDepth(10)
+            .warmup(Duration.ofMillis(200)).duration(Duration.ofSeconds(1)).interval(Duration.ofMillis(250))
+            .run();
+
+        //then
+        assertTrue(report.operations() > 1000);
+        assertEquals(0, report.errors());
+        assertEquals(0, report.misses());
+        assertTrue(report.readLatency().count() > 0);
+        assertTrue(report.writeLatency().count() > 0);
+        assertTrue(report.latency().percentile(50) <= report.latency().percentile(99));
+        assertFalse(report.isCorrected());
+        assertEquals(4, report.throughput().size());
+        long sampled = report.throughput().stream().mapToLong(LoadReport.Sample::operations).sum();
+        assertEquals(report.operations(), sampled, report.operations() / 10.0);
+    }
+
+    @Test
+    public void openLoopShouldHoldTargetRate() {
+        //given
+        redis = RedisServer.builder().port(6379).build();
+        redis.start();
+
+        //when
+        LoadReport report = LoadGenerator.to(redis).connections(2).pipelineDepth(16)
+            .openLoop(2000).duration(Duration.ofSeconds(1))
+            .run();
+
+        //then
+        assertTrue(report.isOpenLoop());
+        assertTrue(report.isCorrected());
+        assertEquals(2000, report.operations(), 100);
+        assertEquals(0, report.errors());
+    }
+
+    @Test
+    public void openLoopShouldCountStallsInLatency() throws Exception {
+        //given
+        redis = RedisServer.builder().port(6379).build();
+        redis.start();
+        Thread pause = new Thread(() -> {
+            try (Jedis jedis = new Jedis("localhost", 6379)) {
+                TimeUnit.MILLISECONDS.sleep(300);
+                jedis.clientPause(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        pause.start();
+
+        //when
+        LoadReport report = LoadGenerator.to(redis).connections(1).pipelineDepth(1000)
+            .openLoop(1000).duration(Duration.ofSeconds(1))
+            .run();
+        pause.join();
+
+        //then
+        // about 300 commands were due during the pause, each one waited for its remaining part
+        assertTrue(report.toString(), report.latency().max() >= TimeUnit.MILLISECONDS.toNanos(250));
+        assertTrue(report.toString(), report.latency().percentile(80) >= TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    public void loadShouldBeRoutedBySlotInShardedCluster() {
+        //given
+        RedisShardedCluster cluster = RedisShardedCluster.builder().ephemeral().masters(3).build();
+        redis = cluster;
+        cluster.start();
+
+        //when
+        LoadReport report = LoadGenerator.to(cluster).readRatio(0).connections(2).pipelineDepth(10)
+            .duration(Duration.ofMillis(500))
+            .run();
+
+        //then
+        assertTrue(report.operations() > 0);
+        assertEquals(0, report.errors());
+    }
+}
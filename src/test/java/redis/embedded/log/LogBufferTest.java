@@ -0,0 +1,44 @@
+package redis.embedded.log;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class LogBufferTest {
+
+    @Test
+    public void linesShouldKeepOnlyMostRecentLines() throws Exception {
+        //given
+        final LogBuffer buffer = new LogBuffer(3);
+
+        //when
+        for (int i = 1; i <= 5; i++) {
+            buffer.add("line" + i);
+        }
+
+        //then
+        assertEquals(Arrays.asList("line3", "line4", "line5"), buffer.lines());
+        assertEquals(5, buffer.total());
+    }
+
+    @Test
+    public void linesShouldBeEmptyBeforeFirstLine() throws Exception {
+        assertEquals(Collections.emptyList(), new LogBuffer(3).lines());
+    }
+
+    @Test
+    public void containsShouldMatchBufferedLines() throws Exception {
+        //given
+        final LogBuffer buffer = new LogBuffer(10);
+        buffer.add("1:M 01 Jan 2024 00:00:00.000 * Server initialized");
+        buffer.add("1:M 01 Jan 2024 00:00:00.000 * Ready to accept connections tcp");
+
+        //then
+        assertTrue(buffer.contains(Pattern.compile(".*Ready to accept connections.*")));
+        assertFalse(buffer.contains(Pattern.compile(".*Sentinel ID is.*")));
+    }
+}
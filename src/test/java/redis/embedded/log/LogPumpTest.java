@@ -0,0 +1,100 @@
+package redis.embedded.log;
+
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+
+public class LogPumpTest {
+
+    @Test
+    public void pollingPumpShouldDrainStdoutAndStderr() throws Exception {
+        assertDrained(new LogPump(null, 1));
+    }
+
+    @Test
+    public void sharedPumpShouldDrainStdoutAndStderr() throws Exception {
+        assertDrained(LogPump.shared());
+    }
+
+    @Test
+    public void closeableSinkShouldBeClosedOnceDrained() throws Exception {
+        //given
+        final CountDownLatch closed = new CountDownLatch(1);
+        final LogSink sink = new ClosingSink(closed);
+
+        //when
+        LogPump.Attachment attachment = LogPump.shared().attach(javaVersion(), "java", new LogBuffer(100), sink);
+
+        //then
+        assertTrue(attachment.awaitDrained(10000));
+        assertTrue(closed.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void fileSinkShouldKeepEveryLineAcrossAttachments() throws Exception {
+        //given
+        final File file = File.createTempFile("embedded-redis", ".log");
+        file.deleteOnExit();
+        final LogSink sink = LogSinks.file(file);
+
+        //when
+        assertTrue(LogPump.shared().attach(javaVersion(), "first", new LogBuffer(100), sink).awaitDrained(10000));
+        assertTrue(LogPump.shared().attach(javaVersion(), "second", new LogBuffer(100), sink).awaitDrained(10000));
+
+        //then
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("first ") && line.contains("version")));
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("second ") && line.contains("version")));
+    }
+
+    private static Process javaVersion() throws Exception {
+        final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        return new ProcessBuilder(java, "-version").start();
+    }
+
+    private static class ClosingSink implements LogSink, Closeable {
+        private final CountDownLatch closed;
+
+        private ClosingSink(CountDownLatch closed) {
+            this.closed = closed;
+        }
+
+        @Override
+        public void log(String source, boolean error, String line) {
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+    }
+
+    private static void assertDrained(LogPump pump) throws Exception {
+        //given
+        final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        final Process process = new ProcessBuilder(java, "-version").start();
+        final LogBuffer buffer = new LogBuffer(100);
+        final List<String> errors = new CopyOnWriteArrayList<>();
+
+        //when
+        LogPump.Attachment attachment = pump.attach(process, "java", buffer, (source, error, line) -> {
+            if (error) {
+                errors.add(line);
+            }
+        });
+
+        //then
+        assertTrue(attachment.awaitDrained(10000));
+        assertTrue(buffer.lines().stream().anyMatch(line -> line.contains("version")));
+        assertTrue(errors.stream().anyMatch(line -> line.contains("version")));
+    }
+}
@@ -0,0 +1,196 @@
+package redis.embedded.metrics;
+
+import org.junit.After;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.embedded.Redis;
+import redis.embedded.RedisCluster;
+import redis.embedded.RedisServer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MetricsSamplerTest {
+
+    private Redis redis;
+
+    @After
+    public void tearDown() {
+        if (redis != null) {
+            redis.stop();
+        }
+    }
+
+    @Test
+    public void shouldParseInfoSections() {
+        //given
+        String stats = "# Stats\r\ninstantaneous_ops_per_sec:42\r\nkeyspace_hits:7\r\nkeyspace_misses:3\r\n"
+            + "evicted_keys:0\r\nrejected_connections:1\r\ninstantaneous_input_kbps:1.25\r\n";
+        String memory = "# Memory\r\nused_memory:1048576\r\nused_memory_human:1.00M\r\n";
+
+        //when
+        MetricsSample sample = MetricsSample.parse(1000L, stats, memory);
+
+        //then
+        assertEquals(1000L, sample.timestampMillis());
+        assertEquals(42, sample.get(Metric.OPS_PER_SECOND), 0);
+        assertEquals(7, sample.get(Metric.KEYSPACE_HITS), 0);
+        assertEquals(3, sample.get(Metric.KEYSPACE_MISSES), 0);
+        assertEquals(1, sample.get(Metric.REJECTED_CONNECTIONS), 0);
+        assertEquals(1.25, sample.get(Metric.INPUT_KBPS), 0);
+        assertEquals(1048576, sample.get(Metric.USED_MEMORY), 0);
+        assertFalse(sample.has(Metric.CONNECTED_CLIENTS));
+        assertTrue(Double.isNaN(sample.get(Metric.CONNECTED_CLIENTS)));
+    }
+
+    @Test
+    public void seriesShouldKeepMostRecentSamples() {
+        //given
+        MetricsSeries series = new MetricsSeries("RedisServer[6379]", 3);
+
+        //when
+        for (int i = 1; i <= 5; i++) {
+            MetricsSample sample = MetricsSample.parse(i * 1000L, "keyspace_hits:" + (i * 10));
+            series.add(sample);
+        }
+
+        //then
+        assertEquals(3, series.size());
+        assertArrayEquals(new double[]{30, 40, 50}, series.values(Metric.KEYSPACE_HITS), 0);
+        assertEquals(5000L, series.latest().timestampMillis());
+        assertEquals(10, series.rate(Metric.KEYSPACE_HITS), 0);
+    }
+
+    @Test
+    public void shouldSampleRunningServer() throws Exception {
+        //given
+        redis = RedisServer.builder().port(6379).build();
+        redis.start();
+        final CountDownLatch sampled = new CountDownLatch(3);
+
+        //when
+        try (MetricsSampler sampler = MetricsSampler.of(redis).interval(Duration.ofMillis(50))) {
+            sampler.addListener((instance, sample) -> sampled.countDown());
+            sampler.start();
+            try (Jedis jedis = new Jedis("localhost", 6379)) {
+                jedis.set("key", "value");
+                jedis.get("key");
+                jedis.get("missing");
+            }
+            assertTrue(sampled.await(5, TimeUnit.SECONDS));
+            sampler.sampleNow();
+
+            //then
+            assertEquals(1, sampler.series().size());
+            MetricsSeries series = sampler.series().get(redis.toString());
+            assertTrue(series.size() >= 3);
+            MetricsSample latest = series.latest();
+            assertEquals(1, latest.get(Metric.KEYSPACE_HITS), 0);
+            assertEquals(1, latest.get(Metric.KEYSPACE_MISSES), 0);
+            assertTrue(latest.get(Metric.USED_MEMORY) > 0);
+            assertTrue(latest.get(Metric.CONNECTED_CLIENTS) >= 1);
+            assertTrue(latest.has(Metric.OPS_PER_SECOND));
+        }
+    }
+
+    @Test
+    public void shouldSkipStoppedInstances() {
+        //given
+        redis = RedisServer.builder().port(6379).build();
+        redis.start();
+        MetricsSampler sampler = MetricsSampler.of(redis);
+        sampler.sampleNow();
+
+        //when
+        redis.stop();
+        sampler.sampleNow();
+        redis.start();
+        sampler.sampleNow();
+        sampler.close();
+
+        //then
+        assertEquals(2, sampler.series().get(redis.toString()).size());
+    }
+
+    @Test
+    public void restartShouldKeepTheSeries() throws Exception {
+        //given
+        redis = RedisServer.builder().port(6379).build();
+        redis.start();
+        MetricsSampler sampler = MetricsSampler.of(redis).interval(Duration.ofMillis(50));
+        final CountDownLatch resumed = new CountDownLatch(2);
+        sampler.start();
+        sampler.close();
+        final Map<String, MetricsSeries> series = sampler.series();
+        final int sampled = series.get(redis.toString()).size();
+
+        //when
+        sampler.addListener((instance, sample) -> resumed.countDown());
+        sampler.start();
+        try {
+            assertTrue(resumed.await(5, TimeUnit.SECONDS));
+        } finally {
+            sampler.close();
+        }
+
+        //then
+        assertSame(series, sampler.series());
+        assertTrue(series.get(redis.toString()).size() >= sampled + 2);
+    }
+
+    @Test
+    public void failingListenerShouldNotStopSampling() throws Exception {
+        //given
+        redis = RedisServer.builder().port(6379).build();
+        redis.start();
+        final CountDownLatch sampled = new CountDownLatch(3);
+        MetricsSampler sampler = MetricsSampler.of(redis).interval(Duration.ofMillis(50));
+        sampler.addListener((instance, sample) -> {
+            throw new IllegalStateException("listener failure");
+        });
+        sampler.addListener((instance, sample) -> sampled.countDown());
+
+        //when
+        sampler.start();
+        try {
+            assertTrue(sampled.await(5, TimeUnit.SECONDS));
+        } finally {
+            sampler.close();
+        }
+
+        //then
+        assertTrue(sampler.series().get(redis.toString()).size() >= 3);
+    }
+
+    @Test
+    public void shouldSampleEveryInstanceOfCluster() {
+        //given
+        RedisCluster cluster = RedisCluster.builder()
+            .sentinelCount(1)
+            .replicationGroup("ourmaster", 1)
+            .build();
+        redis = cluster;
+        cluster.start();
+        final List<String> instances = new ArrayList<>();
+
+        //when
+        MetricsSampler sampler = MetricsSampler.of(cluster);
+        sampler.addListener((instance, sample) -> instances.add(instance));
+        sampler.sampleNow();
+        sampler.close();
+
+        //then
+        assertEquals(3, sampler.series().size());
+        assertEquals(new ArrayList<>(sampler.series().keySet()), instances);
+        for (MetricsSeries series : sampler.series().values()) {
+            assertEquals(1, series.size());
+            assertTrue(series.latest().get(Metric.CONNECTED_CLIENTS) >= 1);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package redis.embedded.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.embedded.RedisServer;
+
+import static org.junit.Assert.*;
+
+public class MicrometerBridgeTest {
+
+    private RedisServer redisServer;
+
+    @After
+    public void tearDown() {
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    public void shouldPublishLatestSampleAsMeters() {
+        //given
+        redisServer = RedisServer.builder().port(6379).build();
+        redisServer.start();
+        MetricsSampler sampler = MetricsSampler.of(redisServer);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        //when
+        sampler.sampleNow();
+        new MicrometerBridge(sampler).bindTo(registry);
+        try (Jedis jedis = new Jedis("localhost", 6379)) {
+            jedis.set("key", "value");
+            jedis.get("key");
+        }
+        sampler.sampleNow();
+        sampler.close();
+
+        //then
+        Gauge memory = registry.get(Metric.USED_MEMORY.meterName())
+            .tag(MicrometerBridge.INSTANCE_TAG, redisServer.toString()).gauge();
+        assertTrue(memory.value() > 0);
+        FunctionCounter hits = registry.get(Metric.KEYSPACE_HITS.meterName()).functionCounter();
+        assertEquals(1, hits.count(), 0);
+        assertEquals(Metric.values().length, registry.getMeters().size());
+    }
+}
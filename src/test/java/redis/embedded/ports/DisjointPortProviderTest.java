@@ -0,0 +1,104 @@
+package redis.embedded.ports;
+
+import org.junit.Test;
+
+import java.net.ServerSocket;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class DisjointPortProviderTest {
+
+    @Test
+    public void providersShouldGetDisjointBlocks() {
+        //given
+        final DisjointPortProvider first = new DisjointPortProvider(40000, 10, 5);
+        final DisjointPortProvider second = new DisjointPortProvider(40000, 10, 5);
+
+        try {
+            //when
+            int a = first.next();
+            int b = second.next();
+
+            //then
+            assertNotEquals(a / 10, b / 10);
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    @Test
+    public void nextShouldSkipPortsInUse() throws Exception {
+        //given
+        final DisjointPortProvider provider = new DisjointPortProvider(40100, 10, 5);
+        try {
+            int first = provider.next();
+            try (ServerSocket taken = new ServerSocket(first + 1)) {
+                //when
+                int second = provider.next();
+
+                //then
+                assertEquals(first + 2, second);
+            }
+        } finally {
+            provider.close();
+        }
+    }
+
+    @Test
+    public void nextShouldSkipPortsWhoseBusPortIsInUse() throws Exception {
+        //given
+        final DisjointPortProvider provider = new DisjointPortProvider(40300, 10, 5, 1000);
+        try {
+            int first = provider.next();
+            try (ServerSocket taken = new ServerSocket(first + 1 + 1000)) {
+                //when
+                int second = provider.next();
+
+                //then
+                assertTrue(second > first + 1);
+                assertNotEquals(taken.getLocalPort(), second + 1000);
+            }
+        } finally {
+            provider.close();
+        }
+    }
+
+    @Test
+    public void defaultRangeShouldLeaveClusterBusPortsUnclaimed() {
+        //given
+        final DisjointPortProvider provider = DisjointPortProvider.forClusterNodes();
+        try {
+            //when
+            int port = provider.next();
+
+            //then
+            assertTrue(port < DisjointPortProvider.DEFAULT_FIRST_PORT + DisjointPortProvider.CLUSTER_BUS_PORT_OFFSET);
+            assertTrue(port + DisjointPortProvider.CLUSTER_BUS_PORT_OFFSET
+                >= DisjointPortProvider.DEFAULT_FIRST_PORT
+                + DisjointPortProvider.DEFAULT_BLOCK_SIZE * DisjointPortProvider.DEFAULT_BLOCK_COUNT);
+        } finally {
+            provider.close();
+        }
+    }
+
+    @Test
+    public void nextShouldClaimAnotherBlockWhenExhausted() {
+        //given
+        final DisjointPortProvider provider = new DisjointPortProvider(40200, 3, 5);
+        try {
+            //when
+            Set<Integer> ports = new HashSet<>();
+            for (int i = 0; i < 7; i++) {
+                ports.add(provider.next());
+            }
+
+            //then
+            assertEquals(7, ports.size());
+        } finally {
+            provider.close();
+        }
+    }
+}
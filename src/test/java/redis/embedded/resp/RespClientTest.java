@@ -0,0 +1,110 @@
+package redis.embedded.resp;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import redis.embedded.RedisServer;
+import redis.embedded.exceptions.RedisCommandException;
+import redis.embedded.ports.EphemeralPortProvider;
+
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class RespClientTest {
+
+    private static RedisServer server;
+    private static int port;
+
+    @BeforeClass
+    public static void startServer() {
+        port = new EphemeralPortProvider().next();
+        server = RedisServer.builder().port(port).build();
+        server.start();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    public void executeShouldReturnTypedReplies() throws Exception {
+        try (RespClient client = RespClient.connect("127.0.0.1", port)) {
+            assertEquals("PONG", client.execute("PING"));
+            assertEquals("OK", client.execute("SET", "resp:key", "value"));
+            assertEquals("value", client.execute("GET", "resp:key"));
+            assertNull(client.execute("GET", "resp:missing"));
+            assertEquals(3L, client.execute("RPUSH", "resp:list", "a", "b", "c"));
+            assertEquals(Arrays.asList("a", "b", "c"), client.execute("LRANGE", "resp:list", "0", "-1"));
+        }
+    }
+
+    @Test
+    public void errorReplyShouldBeThrownAndKeepConnectionUsable() throws Exception {
+        try (RespClient client = RespClient.connect("127.0.0.1", port)) {
+            try {
+                client.execute("NO-SUCH-COMMAND");
+                fail("expected an error reply");
+            } catch (RedisCommandException e) {
+                assertEquals("ERR", e.errorCode());
+            }
+            assertEquals("PONG", client.execute("PING"));
+        }
+    }
+
+    @Test
+    public void pipelineShouldReturnRepliesInOrder() throws Exception {
+        try (RespClient client = RespClient.connect("127.0.0.1", port)) {
+            List<Object> replies = client.pipeline(Arrays.asList(
+                new String[]{"SET", "resp:pipelined", "1"},
+                new String[]{"INCR", "resp:pipelined"},
+                new String[]{"NO-SUCH-COMMAND"},
+                new String[]{"GET", "resp:pipelined"}
+            ));
+            assertEquals("OK", replies.get(0));
+            assertEquals(2L, replies.get(1));
+            assertTrue(replies.get(2) instanceof RedisCommandException);
+            assertEquals("2", replies.get(3));
+            assertEquals(0, client.pending());
+        }
+    }
+
+    @Test
+    public void valuesLargerThanBuffersAndNonAsciiShouldRoundTrip() throws Exception {
+        char[] chars = new char[100000];
+        Arrays.fill(chars, 'x');
+        String large = new String(chars);
+        try (RespClient client = RespClient.connect("127.0.0.1", port)) {
+            client.execute("SET", "resp:large", large);
+            assertEquals(large, client.execute("GET", "resp:large"));
+            client.execute("SET", "resp:utf8", "grüße 日本");
+            assertEquals("grüße 日本", client.execute("GET", "resp:utf8"));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void resp3ShouldReturnMaps() throws Exception {
+        try (RespClient client = RespClient.connect("127.0.0.1", port)) {
+            Map<Object, Object> hello = (Map<Object, Object>) client.hello(3);
+            assertEquals(3L, hello.get("proto"));
+            client.execute("HSET", "resp:hash", "field", "value");
+            Map<Object, Object> hash = (Map<Object, Object>) client.execute("HGETALL", "resp:hash");
+            assertEquals("value", hash.get("field"));
+            assertNull(client.execute("GET", "resp:missing"));
+        }
+    }
+
+    @Test(expected = SocketTimeoutException.class)
+    public void readShouldTimeOut() throws Exception {
+        try (ServerSocket silent = new ServerSocket(0);
+             RespClient client = RespClient.connect("127.0.0.1", silent.getLocalPort(), 100)) {
+            client.execute("PING");
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package redis.embedded.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class JarUtilTest {
+    private static final String RESOURCE = "redis-2.x-standalone-startup-output.txt";
+
+    private Path cacheDir;
+
+    @Before
+    public void setUp() throws Exception {
+        cacheDir = Files.createTempDirectory("embedded-redis-cache");
+        System.setProperty(JarUtil.CACHE_DIR_PROPERTY, cacheDir.toString());
+        JarUtil.clearExtractedExecutables();
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty(JarUtil.CACHE_DIR_PROPERTY);
+        JarUtil.clearExtractedExecutables();
+    }
+
+    @Test
+    public void extractExecutableShouldReuseCachedFile() throws Exception {
+        //when
+        File first = JarUtil.extractExecutableFromJar(RESOURCE);
+        File second = JarUtil.extractExecutableFromJar(RESOURCE);
+
+        //then
+        assertEquals(first, second);
+        assertTrue(first.toPath().startsWith(cacheDir));
+        assertTrue(first.canExecute());
+        assertEquals(first.getParentFile().getName().length(), 64);
+    }
+
+    @Test
+    public void extractExecutableShouldReuseFileExtractedByAnotherJvm() throws Exception {
+        //given
+        File first = JarUtil.extractExecutableFromJar(RESOURCE);
+        long lastModified = first.lastModified();
+        JarUtil.clearExtractedExecutables();
+
+        //when
+        File second = JarUtil.extractExecutableFromJar(RESOURCE);
+
+        //then
+        assertEquals(first, second);
+        assertEquals(lastModified, second.lastModified());
+    }
+
+    @Test
+    public void extractExecutableShouldRepairCorruptedCache() throws Exception {
+        //given
+        File first = JarUtil.extractExecutableFromJar(RESOURCE);
+        byte[] expected = Files.readAllBytes(first.toPath());
+        Files.write(first.toPath(), new byte[]{1, 2, 3});
+        JarUtil.clearExtractedExecutables();
+
+        //when
+        File second = JarUtil.extractExecutableFromJar(RESOURCE);
+
+        //then
+        assertArrayEquals(expected, Files.readAllBytes(second.toPath()));
+        assertTrue(second.canExecute());
+    }
+
+    @Test
+    public void resourcesWithSameContentShouldBeExtractedConcurrently() throws Exception {
+        //given
+        final String[] resources = {"jarutil/same-content-a.sh", "jarutil/same-content-b.sh"};
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final CountDownLatch ready = new CountDownLatch(2);
+        try {
+            //when
+            List<Future<File>> files = new ArrayList<>();
+            for (String resource : resources) {
+                files.add(executor.submit(() -> {
+                    ready.countDown();
+                    ready.await();
+                    return JarUtil.extractExecutableFromJar(resource);
+                }));
+            }
+
+            //then
+            File a = files.get(0).get();
+            File b = files.get(1).get();
+            assertEquals(a.getParentFile(), b.getParentFile());
+            assertArrayEquals(Files.readAllBytes(a.toPath()), Files.readAllBytes(b.toPath()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package redis.embedded.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OSDetectorTest {
+
+    @Test
+    public void fromOsArchShouldMapJvmArchitectureNames() {
+        assertEquals(Architecture.x86_64, OSDetector.fromOsArch("amd64"));
+        assertEquals(Architecture.x86_64, OSDetector.fromOsArch("x86_64"));
+        assertEquals(Architecture.arm64, OSDetector.fromOsArch("aarch64"));
+        assertEquals(Architecture.x86, OSDetector.fromOsArch("i386"));
+        assertNull(OSDetector.fromOsArch("ppc64le"));
+        assertNull(OSDetector.fromOsArch(null));
+    }
+
+    @Test
+    public void detectShouldBeMemoized() {
+        assertSame(OsArchitecture.detect(), OsArchitecture.detect());
+        assertSame(OSDetector.getArchitecture(), OsArchitecture.detect().arch());
+    }
+}